@@ -1,10 +1,16 @@
 package com.smartcampusmng.campusmanager;
 
+import com.vaadin.flow.component.page.AppShellConfigurator;
+import com.vaadin.flow.component.page.Push;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+// Push lets the alert inbox update open views as soon as an alert is sent
+@Push
 @SpringBootApplication
-public class CampusManagerApplication {
+@EnableScheduling
+public class CampusManagerApplication implements AppShellConfigurator {
 
 	public static void main(String[] args) {
 		SpringApplication.run(CampusManagerApplication.class, args);
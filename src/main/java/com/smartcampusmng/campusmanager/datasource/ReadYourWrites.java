@@ -0,0 +1,45 @@
+package com.smartcampusmng.campusmanager.datasource;
+
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.WrappedSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the reads of a session on the primary database for a short while after the session has
+ * written, so someone who has just paid sees the payment even if the replica is behind. Calls
+ * made outside a Vaadin session, such as scheduled jobs, are never pinned.
+ */
+@Component
+public class ReadYourWrites {
+    private static final String PRIMARY_UNTIL = ReadYourWrites.class.getName() + ".primaryUntil";
+
+    private final long windowMillis;
+
+    @Autowired
+    public ReadYourWrites(@Value("${datasource.replica.read-your-writes-seconds:10}") long windowSeconds) {
+        this.windowMillis = windowSeconds * 1000;
+    }
+
+    /**
+     * Records that the current session wrote something it may read back right away.
+     */
+    public void wrote() {
+        WrappedSession session = currentSession();
+        if (session != null) {
+            session.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + windowMillis);
+        }
+    }
+
+    public boolean needsPrimary() {
+        WrappedSession session = currentSession();
+        return session != null && session.getAttribute(PRIMARY_UNTIL) instanceof Long until
+            && until > System.currentTimeMillis();
+    }
+
+    private static WrappedSession currentSession() {
+        VaadinSession session = VaadinSession.getCurrent();
+        return session == null ? null : session.getSession();
+    }
+}
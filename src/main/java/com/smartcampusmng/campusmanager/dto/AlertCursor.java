@@ -0,0 +1,10 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of the last alert on a page of an inbox, which is ordered newest first by alert date
+ * and then id. The next page starts with the alert right after it.
+ */
+public record AlertCursor(LocalDateTime alertDate, Long alertId) {
+}
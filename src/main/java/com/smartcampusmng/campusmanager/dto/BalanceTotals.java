@@ -0,0 +1,10 @@
+package com.smartcampusmng.campusmanager.dto;
+
+/**
+ * Ledger totals over all students.
+ */
+public record BalanceTotals(Double pendingAmount, Double overdueAmount, Double paidAmount) {
+    public double outstandingAmount() {
+        return (pendingAmount == null ? 0 : pendingAmount) + (overdueAmount == null ? 0 : overdueAmount);
+    }
+}
@@ -0,0 +1,7 @@
+package com.smartcampusmng.campusmanager.dto;
+
+/**
+ * Payments collected for one group of the analytics view, e.g. a fee type or a term.
+ */
+public record CollectionTotal(String label, Long paymentCount, Double totalAmount) {
+}
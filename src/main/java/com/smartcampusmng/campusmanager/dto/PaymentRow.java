@@ -0,0 +1,33 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import com.smartcampusmng.campusmanager.entity.Payment;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the payment history and receipt grids, read with a single join query.
+ */
+public record PaymentRow(
+    Long paymentId,
+    String studentUsername,
+    String studentFirstName,
+    String studentLastName,
+    String feeName,
+    String semester,
+    String academicYear,
+    Double amount,
+    Payment.PaymentMethod paymentMethod,
+    LocalDateTime paymentDate,
+    String receiptNumber,
+    String transactionReference,
+    String recordedByFirstName,
+    String recordedByLastName
+) {
+    public String studentName() {
+        return studentFirstName + " " + studentLastName;
+    }
+
+    public String recordedByName() {
+        return recordedByFirstName + " " + recordedByLastName;
+    }
+}
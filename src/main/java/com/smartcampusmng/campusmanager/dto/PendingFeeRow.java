@@ -0,0 +1,26 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+
+import java.time.LocalDate;
+
+/**
+ * A row of the pending fees grid, read with a single join query.
+ */
+public record PendingFeeRow(
+    Long studentFeeId,
+    Long studentId,
+    String studentFirstName,
+    String studentLastName,
+    String studentEmail,
+    String feeName,
+    String semester,
+    String academicYear,
+    Double amount,
+    LocalDate dueDate,
+    StudentFee.PaymentStatus status
+) {
+    public String studentName() {
+        return studentFirstName + " " + studentLastName;
+    }
+}
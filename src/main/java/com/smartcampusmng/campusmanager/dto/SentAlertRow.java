@@ -0,0 +1,25 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of the sent alerts grid, read with a single join query.
+ */
+public record SentAlertRow(
+    Long alertId,
+    String studentFirstName,
+    String studentLastName,
+    String studentEmail,
+    String feeName,
+    String semester,
+    String academicYear,
+    Double amount,
+    LocalDate dueDate,
+    LocalDateTime alertDate,
+    String message
+) {
+    public String studentName() {
+        return studentFirstName + " " + studentLastName;
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A row of a student's alert inbox, read with a single join query.
+ */
+public record StudentAlertRow(
+    Long alertId,
+    String feeName,
+    String semester,
+    String academicYear,
+    Double amount,
+    LocalDate dueDate,
+    LocalDateTime alertDate,
+    String message,
+    LocalDateTime readAt
+) {
+    public boolean unread() {
+        return readAt == null;
+    }
+
+    public StudentAlertRow withReadAt(LocalDateTime readAt) {
+        return new StudentAlertRow(alertId, feeName, semester, academicYear, amount, dueDate, alertDate, message,
+            readAt);
+    }
+}
@@ -0,0 +1,13 @@
+package com.smartcampusmng.campusmanager.dto;
+
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+
+/**
+ * A fee of a student's term, read together with the id of the term's provisioning watermark,
+ * which is null while the term still has to be provisioned.
+ */
+public record TermFee(StudentFee fee, Long provisioningId) {
+    public boolean provisioned() {
+        return provisioningId != null;
+    }
+}
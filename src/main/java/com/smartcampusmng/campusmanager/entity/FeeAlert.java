@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 @Data
 public class FeeAlert {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fee_alert_ids")
+    @SequenceGenerator(name = "fee_alert_ids", sequenceName = "fee_alerts_seq", allocationSize = 50)
     @Column(name = "alert_id")
     private Long alertId;
 
@@ -30,4 +31,8 @@ public class FeeAlert {
 
     @Column(name = "message", nullable = false)
     private String message;
+
+    // Null until the student has read the alert
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Written once every fee of a term exists for the student. Fee types added or given a new
+// frequency outside FeeTypeService have to clear this table, or their fees are never provisioned.
+@Entity
+@Table(name = "fee_provisioning",
+       uniqueConstraints = @UniqueConstraint(name = "uk_fee_provisioning_term",
+           columnNames = {"student_id", "semester", "academic_year"}))
+@Data
+public class FeeProvisioning {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "provisioning_id")
+    private Long provisioningId;
+
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+
+    @Column(name = "semester", nullable = false)
+    private String semester;
+
+    @Column(name = "academic_year", nullable = false)
+    private String academicYear;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,68 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A notification waiting to be delivered. Rows are written in the same transaction as the
+ * alert they belong to and drained later by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "notification_outbox",
+       indexes = {
+           @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+           @Index(name = "idx_outbox_claim_token", columnList = "claim_token")
+       })
+@Data
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "student_fee_id")
+    private Long studentFeeId;
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "body", nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private DeliveryStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Set while a dispatcher run owns the row
+    @Column(name = "claim_token")
+    private String claimToken;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum DeliveryStatus {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
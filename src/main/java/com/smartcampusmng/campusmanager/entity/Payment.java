@@ -5,11 +5,14 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+    @Index(name = "idx_payments_transaction_ref", columnList = "transaction_reference")
+})
 @Data
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_ids")
+    @SequenceGenerator(name = "payment_ids", sequenceName = "payments_seq", allocationSize = 50)
     @Column(name = "payment_id")
     private Long paymentId;
 
@@ -44,6 +47,10 @@ public class Payment {
     @Column(name = "remarks")
     private String remarks;
 
+    // Checkout key from the payment dialog plus the fee id, so a repeated submit can't insert twice
+    @Column(name = "idempotency_key", unique = true, length = 64)
+    private String idempotencyKey;
+
     public enum PaymentMethod {
         CASH,
         CREDIT_CARD,
@@ -0,0 +1,44 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * Payments collected on one day for one fee type, payment method and term. Filled
+ * incrementally from new payments by the analytics rollup job. Yearly and one-time fees have
+ * no semester or academic year and are stored with empty strings, so the unique key still holds.
+ */
+@Entity
+@Table(name = "payment_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_payment_daily_rollups",
+           columnNames = {"rollup_date", "fee_type_id", "payment_method", "semester", "academic_year"}))
+@Data
+public class PaymentDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "fee_type_id", nullable = false)
+    private Long feeTypeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false)
+    private Payment.PaymentMethod paymentMethod;
+
+    @Column(name = "semester", nullable = false)
+    private String semester;
+
+    @Column(name = "academic_year", nullable = false)
+    private String academicYear;
+
+    @Column(name = "payment_count", nullable = false)
+    private long paymentCount;
+
+    @Column(name = "total_amount", nullable = false)
+    private double totalAmount;
+}
@@ -0,0 +1,24 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * The receipt number counter of one academic year. {@code nextValue} is the first number
+ * not yet handed to any application node; nodes reserve blocks by moving it forward.
+ */
+@Entity
+@Table(name = "receipt_sequences")
+@Data
+public class ReceiptSequence {
+    @Id
+    @Column(name = "sequence_name", length = 32)
+    private String sequenceName;
+
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * How far a rollup has read its source table: every row up to {@code (lastDate, lastId)},
+ * in date then id order, has been aggregated.
+ */
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+public class RollupWatermark {
+    @Id
+    @Column(name = "rollup_name")
+    private String rollupName;
+
+    @Column(name = "last_date")
+    private LocalDateTime lastDate;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of a student's fees by status, kept in step with {@link StudentFee} in the
+ * same transactions that create fees or change their status.
+ */
+@Entity
+@Table(name = "student_balances")
+@Data
+public class StudentBalance {
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Column(name = "pending_amount", nullable = false)
+    private double pendingAmount;
+
+    @Column(name = "pending_count", nullable = false)
+    private int pendingCount;
+
+    @Column(name = "overdue_amount", nullable = false)
+    private double overdueAmount;
+
+    @Column(name = "overdue_count", nullable = false)
+    private int overdueCount;
+
+    @Column(name = "paid_amount", nullable = false)
+    private double paidAmount;
+
+    @Column(name = "paid_count", nullable = false)
+    private int paidCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public double getOutstandingAmount() {
+        return pendingAmount + overdueAmount;
+    }
+}
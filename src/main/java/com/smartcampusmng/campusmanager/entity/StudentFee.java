@@ -6,11 +6,16 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "student_fees")
+@Table(name = "student_fees", indexes = {
+    @Index(name = "idx_student_fees_status_due", columnList = "status, due_date"),
+    @Index(name = "idx_student_fees_term_status", columnList = "semester, academic_year, alerted, status")
+})
 @Data
 public class StudentFee {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled ids, 50 per counter update, so inserts can be batched (IDENTITY rules that out)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_fee_ids")
+    @SequenceGenerator(name = "student_fee_ids", sequenceName = "student_fees_seq", allocationSize = 50)
     @Column(name = "student_fee_id")
     private Long studentFeeId;
 
@@ -47,6 +52,11 @@ public class StudentFee {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bumped by every update, including the bulk ones, so payments can detect a stale fee
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public enum PaymentStatus {
         PENDING,
         PAID,
@@ -0,0 +1,50 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "term_rollovers",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"semester", "academic_year"}))
+@Data
+public class TermRollover {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollover_id")
+    private Long rolloverId;
+
+    @Column(name = "semester", nullable = false)
+    private String semester;
+
+    @Column(name = "academic_year", nullable = false)
+    private String academicYear;
+
+    // Highest student id whose fees have been committed; the job resumes after it
+    @Column(name = "last_student_id", nullable = false)
+    private Long lastStudentId;
+
+    @Column(name = "students_processed", nullable = false)
+    private long studentsProcessed;
+
+    @Column(name = "rows_created", nullable = false)
+    private long rowsCreated;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private RolloverStatus status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum RolloverStatus {
+        RUNNING,
+        COMPLETED
+    }
+}
@@ -0,0 +1,24 @@
+package com.smartcampusmng.campusmanager.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Number of a student's fee alerts not read yet, kept in step with {@link FeeAlert} in the same
+ * transactions that create, read or delete alerts, so the dashboard badge is a primary key read.
+ */
+@Entity
+@Table(name = "unread_alert_counts")
+@Data
+public class UnreadAlertCount {
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+
+    @Column(name = "unread_count", nullable = false)
+    private int unreadCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.smartcampusmng.campusmanager.migration;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.flyway", name = "enabled", matchIfMissing = true)
+public class MigrationConfig {
+
+    /**
+     * Keeps Flyway from migrating before the entity manager factory starts. Hibernate's schema
+     * update creates the tables on a new database, so the migrations have to run after it.
+     */
+    @Bean
+    public FlywayMigrationStrategy migrateAfterSchemaUpdate() {
+        return flyway -> { };
+    }
+
+    @Bean
+    @DependsOn("entityManagerFactory")
+    public InitializingBean flywayMigration(Flyway flyway) {
+        return flyway::migrate;
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartcampusmng.campusmanager.notification;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends notifications as plain text emails through the SMTP server configured under
+ * {@code spring.mail.*}.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.notifier", havingValue = "email")
+public class EmailNotifier implements Notifier {
+    private final JavaMailSender mailSender;
+    private final String from;
+
+    @Autowired
+    public EmailNotifier(JavaMailSender mailSender,
+                         @Value("${notifications.mail.from:no-reply@smartcampus.local}") String from) {
+        this.mailSender = mailSender;
+        this.from = from;
+    }
+
+    @Override
+    public void send(OutboundMessage message) {
+        SimpleMailMessage mail = new SimpleMailMessage();
+        mail.setFrom(from);
+        mail.setTo(message.recipient());
+        mail.setSubject(message.subject());
+        mail.setText(message.body());
+        mailSender.send(mail);
+    }
+}
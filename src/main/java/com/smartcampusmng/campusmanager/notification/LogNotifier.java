@@ -0,0 +1,21 @@
+package com.smartcampusmng.campusmanager.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes notifications to the log instead of sending them. Used by default, for development
+ * and tests.
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.notifier", havingValue = "log", matchIfMissing = true)
+public class LogNotifier implements Notifier {
+    private static final Logger log = LoggerFactory.getLogger(LogNotifier.class);
+
+    @Override
+    public void send(OutboundMessage message) {
+        log.info("Notification {} to {}: {}", message.outboxId(), message.recipient(), message.subject());
+    }
+}
@@ -0,0 +1,32 @@
+package com.smartcampusmng.campusmanager.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class NotificationConfig {
+
+    /**
+     * Pool the outbox dispatcher delivers on, sized separately from the web request threads.
+     * When the queue is full the dispatcher thread sends the message itself, which slows
+     * claiming down instead of dropping work.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor(
+            @Value("${notifications.outbox.workers:8}") int workers,
+            @Value("${notifications.outbox.batch-size:100}") int batchSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("notify-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(batchSize);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,13 @@
+package com.smartcampusmng.campusmanager.notification;
+
+/**
+ * Delivers outbox messages to students. The implementation is picked with the
+ * {@code notifications.notifier} property.
+ */
+public interface Notifier {
+
+    /**
+     * Delivers one message, throwing if it could not be sent so the dispatcher retries it later.
+     */
+    void send(OutboundMessage message);
+}
@@ -0,0 +1,7 @@
+package com.smartcampusmng.campusmanager.notification;
+
+/**
+ * A message handed to a {@link Notifier}, taken from one outbox row.
+ */
+public record OutboundMessage(Long outboxId, String recipient, String subject, String body) {
+}
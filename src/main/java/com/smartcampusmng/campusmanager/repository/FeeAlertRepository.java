@@ -1,17 +1,77 @@
 package com.smartcampusmng.campusmanager.repository;
 
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
 import com.smartcampusmng.campusmanager.entity.FeeAlert;
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FeeAlertRepository extends JpaRepository<FeeAlert, Long> {
+    String SENT_ALERT_ROW_SELECT =
+        "select new com.smartcampusmng.campusmanager.dto.SentAlertRow(a.alertId, s.firstName, s.lastName, " +
+        "s.email, t.feeName, f.semester, f.academicYear, f.amount, f.dueDate, a.alertDate, a.message) " +
+        "from FeeAlert a join a.student s join a.studentFee f join f.feeType t ";
+
+    String STUDENT_ALERT_ROW_SELECT =
+        "select new com.smartcampusmng.campusmanager.dto.StudentAlertRow(a.alertId, t.feeName, " +
+        "f.semester, f.academicYear, f.amount, f.dueDate, a.alertDate, a.message, a.readAt) " +
+        "from FeeAlert a join a.studentFee f join f.feeType t ";
+
+    // Both inboxes are read newest first, a keyset page at a time: the next page starts after the
+    // (alertDate, alertId) of the last row shown, so older pages cost the same as the first
+    String BEFORE_CURSOR =
+        "and (a.alertDate < :beforeDate or (a.alertDate = :beforeDate and a.alertId < :beforeId)) ";
+
+    String NEWEST_FIRST = "order by a.alertDate desc, a.alertId desc";
+
     List<FeeAlert> findByStudentAndStudentFee(User student, StudentFee studentFee);
     boolean existsByStudentAndStudentFeeAndSentBy(User student, StudentFee studentFee, User sentBy);
-    List<FeeAlert> findBySentBy(User sentBy);
-    List<FeeAlert> findByStudent(User student);
-} 
\ No newline at end of file
+
+    @Query(SENT_ALERT_ROW_SELECT + "where a.sentBy = :sentBy " + NEWEST_FIRST)
+    List<SentAlertRow> findSentAlertRows(@Param("sentBy") User sentBy, Pageable pageable);
+
+    @Query(SENT_ALERT_ROW_SELECT + "where a.sentBy = :sentBy " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<SentAlertRow> findSentAlertRowsBefore(@Param("sentBy") User sentBy,
+                                               @Param("beforeDate") LocalDateTime beforeDate,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable pageable);
+
+    @Query(STUDENT_ALERT_ROW_SELECT + "where a.student = :student " + NEWEST_FIRST)
+    List<StudentAlertRow> findStudentAlertRows(@Param("student") User student, Pageable pageable);
+
+    @Query(STUDENT_ALERT_ROW_SELECT + "where a.student = :student " + BEFORE_CURSOR + NEWEST_FIRST)
+    List<StudentAlertRow> findStudentAlertRowsBefore(@Param("student") User student,
+                                                     @Param("beforeDate") LocalDateTime beforeDate,
+                                                     @Param("beforeId") Long beforeId,
+                                                     Pageable pageable);
+
+    @Query("select a.studentFee.studentFeeId from FeeAlert a " +
+           "where a.sentBy = :sentBy and a.studentFee.studentFeeId in :studentFeeIds")
+    List<Long> findAlertedFeeIds(@Param("sentBy") User sentBy,
+                                 @Param("studentFeeIds") Collection<Long> studentFeeIds);
+
+    @Modifying
+    @Query("update FeeAlert a set a.readAt = :readAt " +
+           "where a.student = :student and a.alertId in :alertIds and a.readAt is null")
+    int markRead(@Param("student") User student, @Param("alertIds") Collection<Long> alertIds,
+                 @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query("update FeeAlert a set a.readAt = :readAt where a.student = :student and a.readAt is null")
+    int markAllRead(@Param("student") User student, @Param("readAt") LocalDateTime readAt);
+
+    @Modifying
+    @Query("delete from FeeAlert a where a.studentFee.studentFeeId in :studentFeeIds")
+    int deleteByStudentFeeIds(@Param("studentFeeIds") Collection<Long> studentFeeIds);
+}
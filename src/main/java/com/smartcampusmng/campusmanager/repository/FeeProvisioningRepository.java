@@ -0,0 +1,10 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.entity.FeeProvisioning;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface FeeProvisioningRepository extends JpaRepository<FeeProvisioning, Long> {
+    boolean existsByStudentIdAndSemesterAndAcademicYear(Long studentId, String semester, String academicYear);
+}
@@ -2,8 +2,15 @@ package com.smartcampusmng.campusmanager.repository;
 
 import com.smartcampusmng.campusmanager.entity.FeeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface FeeTypeRepository extends JpaRepository<FeeType, Long> {
+
+    @Query("select f.frequency from FeeType f where f.feeTypeId = :id")
+    Optional<FeeType.Frequency> findFrequencyById(@Param("id") Long id);
 } 
\ No newline at end of file
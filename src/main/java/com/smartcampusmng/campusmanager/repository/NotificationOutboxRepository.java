@@ -0,0 +1,10 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.entity.NotificationOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+    long countByStatus(NotificationOutbox.DeliveryStatus status);
+}
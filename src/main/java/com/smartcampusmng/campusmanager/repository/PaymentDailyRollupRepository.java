@@ -0,0 +1,44 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.dto.CollectionTotal;
+import com.smartcampusmng.campusmanager.entity.PaymentDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PaymentDailyRollupRepository extends JpaRepository<PaymentDailyRollup, Long> {
+
+    @Query("select new com.smartcampusmng.campusmanager.dto.CollectionTotal(t.feeName, " +
+           "sum(r.paymentCount), sum(r.totalAmount)) " +
+           "from PaymentDailyRollup r join FeeType t on t.feeTypeId = r.feeTypeId " +
+           "where r.rollupDate between :from and :to group by t.feeName order by sum(r.totalAmount) desc")
+    List<CollectionTotal> sumByFeeType(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.smartcampusmng.campusmanager.dto.CollectionTotal(cast(r.paymentMethod as string), " +
+           "sum(r.paymentCount), sum(r.totalAmount)) " +
+           "from PaymentDailyRollup r where r.rollupDate between :from and :to " +
+           "group by r.paymentMethod order by sum(r.totalAmount) desc")
+    List<CollectionTotal> sumByPaymentMethod(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.smartcampusmng.campusmanager.dto.CollectionTotal(" +
+           "trim(concat(r.semester, ' ', r.academicYear)), sum(r.paymentCount), sum(r.totalAmount)) " +
+           "from PaymentDailyRollup r where r.rollupDate between :from and :to " +
+           "group by r.semester, r.academicYear order by r.academicYear desc, r.semester")
+    List<CollectionTotal> sumByTerm(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.smartcampusmng.campusmanager.dto.CollectionTotal(" +
+           "cast(r.rollupDate as string), sum(r.paymentCount), sum(r.totalAmount)) " +
+           "from PaymentDailyRollup r where r.rollupDate between :from and :to " +
+           "group by r.rollupDate order by r.rollupDate")
+    List<CollectionTotal> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("delete from PaymentDailyRollup r")
+    int deleteAllRollups();
+}
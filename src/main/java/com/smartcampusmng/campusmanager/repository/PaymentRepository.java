@@ -1,17 +1,81 @@
 package com.smartcampusmng.campusmanager.repository;
 
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
 import com.smartcampusmng.campusmanager.entity.Payment;
 import com.smartcampusmng.campusmanager.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
+    String PAYMENT_ROW_SELECT =
+        "select new com.smartcampusmng.campusmanager.dto.PaymentRow(p.paymentId, s.username, s.firstName, " +
+        "s.lastName, t.feeName, f.semester, f.academicYear, p.amount, p.paymentMethod, p.paymentDate, " +
+        "p.receiptNumber, p.transactionReference, r.firstName, r.lastName) " +
+        "from Payment p join p.student s join p.studentFee f join f.feeType t join p.recordedBy r ";
+
     List<Payment> findByStudent(User student);
     List<Payment> findByStudentAndStudentFee_SemesterAndStudentFee_AcademicYear(
         User student, String semester, String academicYear);
     List<Payment> findByStudentFee_SemesterAndStudentFee_AcademicYear(
         String semester, String academicYear);
-} 
\ No newline at end of file
+
+    List<Payment> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
+
+    @Query("select p from Payment p where p.paymentId in (" +
+           "select min(q.paymentId) from Payment q where q.studentFee.studentFeeId in :feeIds group by q.studentFee)")
+    List<Payment> findFirstPaymentsForFees(@Param("feeIds") Collection<Long> feeIds);
+
+    @Query(PAYMENT_ROW_SELECT +
+           "where p.student = :student and f.semester = :semester and f.academicYear = :academicYear " +
+           "order by p.paymentDate desc")
+    List<PaymentRow> findRowsByStudentAndTerm(@Param("student") User student,
+                                              @Param("semester") String semester,
+                                              @Param("academicYear") String academicYear);
+
+    @Query(PAYMENT_ROW_SELECT + "where f.semester = :semester and f.academicYear = :academicYear")
+    List<PaymentRow> findRowsByTerm(@Param("semester") String semester,
+                                    @Param("academicYear") String academicYear,
+                                    Pageable pageable);
+
+    // Keyset page in id order, so walking a whole term never re-reads skipped rows
+    @Query(PAYMENT_ROW_SELECT + "where f.semester = :semester and f.academicYear = :academicYear " +
+           "and p.paymentId > :afterId order by p.paymentId")
+    List<PaymentRow> findRowsByTermAfter(@Param("semester") String semester,
+                                         @Param("academicYear") String academicYear,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    // Forward-only cursor for exports. A fetch size of Integer.MIN_VALUE makes Connector/J stream the
+    // rows one by one instead of reading the whole result first; only this query streams, the
+    // connection settings stay as they are for everything else
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(PAYMENT_ROW_SELECT + "where f.semester = :semester and f.academicYear = :academicYear " +
+           "order by p.paymentId")
+    Stream<PaymentRow> streamRowsByTerm(@Param("semester") String semester,
+                                        @Param("academicYear") String academicYear);
+
+    long countByStudentFee_SemesterAndStudentFee_AcademicYear(String semester, String academicYear);
+
+    // Each alternative hits its own index (receipt number, transaction reference, student)
+    @Query(PAYMENT_ROW_SELECT + "where p.receiptNumber = :term " +
+           "or p.transactionReference = :term or p.student.userId = :studentId")
+    List<PaymentRow> searchRows(@Param("term") String term, @Param("studentId") Long studentId, Pageable pageable);
+
+    @Query("select count(p) from Payment p where p.receiptNumber = :term " +
+           "or p.transactionReference = :term or p.student.userId = :studentId")
+    long countSearch(@Param("term") String term, @Param("studentId") Long studentId);
+}
@@ -0,0 +1,14 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.dto.BalanceTotals;
+import com.smartcampusmng.campusmanager.entity.StudentBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StudentBalanceRepository extends JpaRepository<StudentBalance, Long> {
+    @Query("select new com.smartcampusmng.campusmanager.dto.BalanceTotals(" +
+           "sum(b.pendingAmount), sum(b.overdueAmount), sum(b.paidAmount)) from StudentBalance b")
+    BalanceTotals sumTotals();
+}
@@ -1,21 +1,68 @@
 package com.smartcampusmng.campusmanager.repository;
 
+import com.smartcampusmng.campusmanager.dto.PendingFeeRow;
+import com.smartcampusmng.campusmanager.dto.TermFee;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.entity.FeeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StudentFeeRepository extends JpaRepository<StudentFee, Long> {
     List<StudentFee> findByStudentAndStatus(User student, StudentFee.PaymentStatus status);
+    @EntityGraph(attributePaths = {"student", "feeType"})
     List<StudentFee> findByStudentAndSemesterAndAcademicYear(User student, String semester, String academicYear);
+    // The watermark of the term comes with every fee, so a provisioned term is served by this one query
+    @Query("select new com.smartcampusmng.campusmanager.dto.TermFee(f, w.provisioningId) " +
+           "from StudentFee f join fetch f.student join fetch f.feeType " +
+           "left join FeeProvisioning w on w.studentId = f.student.userId " +
+           "and w.semester = f.semester and w.academicYear = f.academicYear " +
+           "where f.student = :student and f.semester = :semester and f.academicYear = :academicYear")
+    List<TermFee> findTermFees(@Param("student") User student,
+                               @Param("semester") String semester,
+                               @Param("academicYear") String academicYear);
     boolean existsByStudentAndFeeType(User student, FeeType feeType);
     boolean existsByStudentAndFeeTypeAndSemesterAndAcademicYear(
         User student, FeeType feeType, String semester, String academicYear);
     List<StudentFee> findByStatus(StudentFee.PaymentStatus status);
-    List<StudentFee> findBySemesterAndAcademicYearAndStatus(
-        String semester, String academicYear, StudentFee.PaymentStatus status);
-} 
\ No newline at end of file
+    List<StudentFee> findBySemesterAndAcademicYearAndStatusIn(
+        String semester, String academicYear, Collection<StudentFee.PaymentStatus> statuses);
+    @Query("select new com.smartcampusmng.campusmanager.dto.PendingFeeRow(f.studentFeeId, s.userId, " +
+           "s.firstName, s.lastName, s.email, t.feeName, f.semester, f.academicYear, f.amount, f.dueDate, f.status) " +
+           "from StudentFee f join f.student s join f.feeType t " +
+           "where f.semester = :semester and f.academicYear = :academicYear " +
+           "and f.status in :statuses and f.alerted = false")
+    List<PendingFeeRow> findUnalertedRows(@Param("semester") String semester,
+                                          @Param("academicYear") String academicYear,
+                                          @Param("statuses") Collection<StudentFee.PaymentStatus> statuses,
+                                          Pageable pageable);
+    long countBySemesterAndAcademicYearAndStatusInAndAlertedFalse(
+        String semester, String academicYear, Collection<StudentFee.PaymentStatus> statuses);
+
+    @EntityGraph(attributePaths = {"student", "feeType"})
+    List<StudentFee> findByStudentFeeIdIn(Collection<Long> studentFeeIds);
+
+    @Modifying
+    @Query("update StudentFee f set f.status = :status, f.version = f.version + 1, f.updatedAt = :updatedAt " +
+           "where f.studentFeeId in :ids")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("status") StudentFee.PaymentStatus status,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("update StudentFee f set f.alerted = true, f.version = f.version + 1, f.updatedAt = :updatedAt " +
+           "where f.studentFeeId in :ids and f.status in :statuses and f.alerted = false")
+    int markAlertedByIds(@Param("ids") Collection<Long> ids,
+                         @Param("statuses") Collection<StudentFee.PaymentStatus> statuses,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,12 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.entity.TermRollover;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface TermRolloverRepository extends JpaRepository<TermRollover, Long> {
+    Optional<TermRollover> findBySemesterAndAcademicYear(String semester, String academicYear);
+}
@@ -0,0 +1,9 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.entity.UnreadAlertCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UnreadAlertCountRepository extends JpaRepository<UnreadAlertCount, Long> {
+}
@@ -0,0 +1,35 @@
+package com.smartcampusmng.campusmanager.security;
+
+import com.smartcampusmng.campusmanager.entity.User;
+import com.vaadin.flow.server.VaadinSession;
+
+/**
+ * Access to the {@link UserSnapshot} of the current Vaadin session.
+ */
+public final class CurrentUser {
+    private static final String SESSION_ATTRIBUTE = "user";
+
+    private CurrentUser() {
+    }
+
+    public static UserSnapshot snapshot() {
+        VaadinSession session = VaadinSession.getCurrent();
+        return session == null ? null : (UserSnapshot) session.getAttribute(SESSION_ATTRIBUTE);
+    }
+
+    /**
+     * The logged-in user as a detached entity, or {@code null} when nobody is logged in.
+     */
+    public static User get() {
+        UserSnapshot snapshot = snapshot();
+        return snapshot == null ? null : snapshot.toUser();
+    }
+
+    public static void set(UserSnapshot snapshot) {
+        VaadinSession.getCurrent().setAttribute(SESSION_ATTRIBUTE, snapshot);
+    }
+
+    public static void clear() {
+        VaadinSession.getCurrent().setAttribute(SESSION_ATTRIBUTE, null);
+    }
+}
@@ -1,12 +1,22 @@
 package com.smartcampusmng.campusmanager.security;
 
 import com.vaadin.flow.spring.security.VaadinWebSecurity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @EnableWebSecurity
@@ -26,8 +36,41 @@ public class SecurityConfig extends VaadinWebSecurity {
         setLoginView(http, "/login");
     }
 
+    /**
+     * The actuator endpoints, checked before the Vaadin views. Only the health check the load
+     * balancer calls is public; metrics are for the Prometheus scraper, which signs in with HTTP
+     * basic as the scrape user. Without a scrape password configured nobody can read them.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http,
+            @Value("${metrics.scrape.username:prometheus}") String username,
+            @Value("${metrics.scrape.password:}") String password) throws Exception {
+        PasswordEncoder passwordEncoder = passwordEncoder();
+        InMemoryUserDetailsManager scrapers = new InMemoryUserDetailsManager();
+        if (!password.isEmpty()) {
+            scrapers.createUser(User.withUsername(username)
+                .password(passwordEncoder.encode(password))
+                .roles("METRICS")
+                .build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(scrapers);
+        provider.setPasswordEncoder(passwordEncoder);
+
+        http.securityMatcher(new AntPathRequestMatcher("/actuator/**"))
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers(new AntPathRequestMatcher("/actuator/health")).permitAll()
+                .anyRequest().hasRole("METRICS"))
+            .authenticationManager(new ProviderManager(provider))
+            // A plain 401; an error dispatch would end up at the Vaadin login redirect
+            .httpBasic(basic -> basic.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
     }
-} 
\ No newline at end of file
+}
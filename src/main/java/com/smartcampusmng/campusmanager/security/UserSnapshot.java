@@ -0,0 +1,33 @@
+package com.smartcampusmng.campusmanager.security;
+
+import com.smartcampusmng.campusmanager.entity.User;
+
+import java.io.Serializable;
+
+/**
+ * The logged-in user as read at login, kept in the Vaadin session so views don't have to
+ * query the user again on every navigation. It carries no password hash.
+ */
+public record UserSnapshot(Long userId, String username, String email, String firstName,
+                           String lastName, User.UserRole role) implements Serializable {
+
+    public static UserSnapshot from(User user) {
+        return new UserSnapshot(user.getUserId(), user.getUsername(), user.getEmail(),
+            user.getFirstName(), user.getLastName(), user.getRole());
+    }
+
+    /**
+     * A detached {@link User} with the snapshot's values, for passing to services that take a
+     * user as a reference. It must never be saved itself, as it has no password.
+     */
+    public User toUser() {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setRole(role);
+        return user;
+    }
+}
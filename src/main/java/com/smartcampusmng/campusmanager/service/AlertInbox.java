@@ -0,0 +1,58 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Hands newly committed fee alerts to the open views of the student they were sent to, so a
+ * view shows the new alert without reloading the inbox. Subscribers are called on the thread
+ * that committed the alert and must only hand the row over, e.g. with {@code UI.access}.
+ */
+@Component
+public class AlertInbox {
+    private static final Logger log = LoggerFactory.getLogger(AlertInbox.class);
+
+    private final Map<Long, Set<Consumer<StudentAlertRow>>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes to the alerts sent to one student until the returned action is run.
+     */
+    public Runnable subscribe(Long studentId, Consumer<StudentAlertRow> subscriber) {
+        subscribers.compute(studentId, (id, forStudent) -> {
+            Set<Consumer<StudentAlertRow>> set = forStudent == null ? ConcurrentHashMap.newKeySet() : forStudent;
+            set.add(subscriber);
+            return set;
+        });
+        return () -> subscribers.computeIfPresent(studentId, (id, forStudent) -> {
+            forStudent.remove(subscriber);
+            return forStudent.isEmpty() ? null : forStudent;
+        });
+    }
+
+    @TransactionalEventListener
+    public void deliver(FeeAlertsCreated event) {
+        for (FeeAlertsCreated.Delivery delivery : event.deliveries()) {
+            Set<Consumer<StudentAlertRow>> forStudent = subscribers.get(delivery.studentId());
+            if (forStudent == null) {
+                continue;
+            }
+            for (Consumer<StudentAlertRow> subscriber : forStudent) {
+                // The alert has committed by now; a closed view must not fail the sender's request
+                try {
+                    subscriber.accept(delivery.row());
+                } catch (RuntimeException e) {
+                    log.debug("Could not push alert {} to student {}", delivery.row().alertId(),
+                        delivery.studentId(), e);
+                }
+            }
+        }
+    }
+}
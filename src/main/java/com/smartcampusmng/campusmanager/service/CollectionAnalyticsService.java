@@ -0,0 +1,210 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.BalanceTotals;
+import com.smartcampusmng.campusmanager.dto.CollectionTotal;
+import com.smartcampusmng.campusmanager.entity.RollupWatermark;
+import com.smartcampusmng.campusmanager.repository.PaymentDailyRollupRepository;
+import com.smartcampusmng.campusmanager.repository.RollupWatermarkRepository;
+import com.smartcampusmng.campusmanager.repository.StudentBalanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collection totals for the ACCOUNTS analytics view. Reads only touch the small
+ * {@code payment_daily_rollups} table and the balance ledger, never {@code payments}.
+ * The rollups are extended on a schedule from payments past the watermark, a chunk per
+ * transaction. The watermark is a (payment date, payment id) position, as pooled ids are handed
+ * out in blocks per JVM and say nothing about commit order. Payments newer than the settle delay
+ * are left for the next run, so a transaction that commits late still lands past the watermark.
+ */
+@Service
+public class CollectionAnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(CollectionAnalyticsService.class);
+
+    static final String PAYMENTS_ROLLUP = "payments";
+
+    // Before every payment; also read for a watermark saved without a date
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String LOCK_WATERMARK =
+        "SELECT last_date, last_id FROM rollup_watermarks WHERE rollup_name = ? FOR UPDATE";
+
+    private static final String AFTER_WATERMARK =
+        "(p.payment_date > ? OR (p.payment_date = ? AND p.payment_id > ?)) ";
+
+    // The last settled payment of the next chunk and its position in the chunk
+    private static final String NEXT_UPPER_BOUND =
+        "SELECT payment_date, payment_id, ROW_NUMBER() OVER (ORDER BY payment_date, payment_id) AS position " +
+        "FROM (SELECT p.payment_date, p.payment_id FROM payments p WHERE " + AFTER_WATERMARK +
+        "AND p.payment_date < ? ORDER BY p.payment_date, p.payment_id LIMIT ?) batch " +
+        "ORDER BY position DESC LIMIT 1";
+
+    private static final String ADD_TO_ROLLUPS =
+        "INSERT INTO payment_daily_rollups (rollup_date, fee_type_id, payment_method, semester, academic_year, " +
+        "payment_count, total_amount) " +
+        "SELECT CAST(p.payment_date AS DATE), sf.fee_type_id, p.payment_method, COALESCE(sf.semester, ''), " +
+        "COALESCE(sf.academic_year, ''), COUNT(*), SUM(p.amount) " +
+        "FROM payments p JOIN student_fees sf ON sf.student_fee_id = p.student_fee_id " +
+        "WHERE " + AFTER_WATERMARK +
+        "AND (p.payment_date < ? OR (p.payment_date = ? AND p.payment_id <= ?)) " +
+        "GROUP BY CAST(p.payment_date AS DATE), sf.fee_type_id, p.payment_method, " +
+        "COALESCE(sf.semester, ''), COALESCE(sf.academic_year, '') " +
+        "ON DUPLICATE KEY UPDATE payment_count = payment_count + VALUES(payment_count), " +
+        "total_amount = total_amount + VALUES(total_amount)";
+
+    private static final String MOVE_WATERMARK =
+        "UPDATE rollup_watermarks SET last_date = ?, last_id = ?, updated_at = ? WHERE rollup_name = ?";
+
+    private final PaymentDailyRollupRepository rollupRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final StudentBalanceRepository studentBalanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int settleSeconds;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public CollectionAnalyticsService(PaymentDailyRollupRepository rollupRepository,
+                                      RollupWatermarkRepository watermarkRepository,
+                                      StudentBalanceRepository studentBalanceRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${analytics.rollup.chunk-size:10000}") int chunkSize,
+                                      @Value("${analytics.rollup.settle-seconds:60}") int settleSeconds) {
+        this.rollupRepository = rollupRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.studentBalanceRepository = studentBalanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.settleSeconds = settleSeconds;
+    }
+
+    public List<CollectionTotal> getCollectedByFeeType(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByFeeType(from, to);
+    }
+
+    public List<CollectionTotal> getCollectedByPaymentMethod(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByPaymentMethod(from, to);
+    }
+
+    public List<CollectionTotal> getCollectedByTerm(LocalDate from, LocalDate to) {
+        // One-time fees have neither semester nor academic year
+        return rollupRepository.sumByTerm(from, to).stream()
+            .map(total -> total.label().isEmpty()
+                ? new CollectionTotal("One-time fees", total.paymentCount(), total.totalAmount())
+                : total)
+            .toList();
+    }
+
+    public List<CollectionTotal> getCollectedByDay(LocalDate from, LocalDate to) {
+        return rollupRepository.sumByDay(from, to);
+    }
+
+    public BalanceTotals getBalanceTotals() {
+        return studentBalanceRepository.sumTotals();
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollup.delay-ms:60000}")
+    public void scheduledRollUp() {
+        rollUp();
+    }
+
+    /**
+     * Adds all settled payments past the watermark to the rollups.
+     *
+     * @return the number of payments added, 0 when there was nothing new
+     */
+    public long rollUp() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            ensureWatermark();
+            long processed = 0;
+            while (true) {
+                Long advanced = transactionTemplate.execute(status -> rollUpChunk());
+                if (advanced == null || advanced == 0) {
+                    break;
+                }
+                processed += advanced;
+            }
+            if (processed > 0) {
+                log.info("Payment rollups advanced over {} payments", processed);
+            }
+            return processed;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Drops all rollups and aggregates the whole payment history again.
+     */
+    public long rebuild() {
+        ensureWatermark();
+        transactionTemplate.executeWithoutResult(status -> {
+            lockWatermark();
+            rollupRepository.deleteAllRollups();
+            jdbcTemplate.update(MOVE_WATERMARK, Timestamp.valueOf(START), 0L, Timestamp.valueOf(LocalDateTime.now()),
+                PAYMENTS_ROLLUP);
+        });
+        log.info("Payment rollups cleared for a full rebuild");
+        return rollUp();
+    }
+
+    private long rollUpChunk() {
+        Position last = lockWatermark();
+        Timestamp settledBefore = Timestamp.valueOf(LocalDateTime.now().minusSeconds(settleSeconds));
+        List<Position> upper = jdbcTemplate.query(NEXT_UPPER_BOUND,
+            (rs, rowNum) -> new Position(rs.getTimestamp(1), rs.getLong(2), rs.getLong(3)),
+            last.date(), last.date(), last.id(), settledBefore, chunkSize);
+        if (upper.isEmpty()) {
+            return 0L;
+        }
+        Position next = upper.get(0);
+        jdbcTemplate.update(ADD_TO_ROLLUPS, last.date(), last.date(), last.id(), next.date(), next.date(), next.id());
+        jdbcTemplate.update(MOVE_WATERMARK, next.date(), next.id(), Timestamp.valueOf(LocalDateTime.now()),
+            PAYMENTS_ROLLUP);
+        return next.count();
+    }
+
+    private Position lockWatermark() {
+        return jdbcTemplate.queryForObject(LOCK_WATERMARK, (rs, rowNum) -> {
+            Timestamp lastDate = rs.getTimestamp(1);
+            return new Position(lastDate == null ? Timestamp.valueOf(START) : lastDate, rs.getLong(2), 0);
+        }, PAYMENTS_ROLLUP);
+    }
+
+    // A payment in (payment date, payment id) order, and how many payments of the chunk it closes
+    private record Position(Timestamp date, long id, long count) {
+    }
+
+    // In one read-write transaction: existsById() on its own is read-only and would ask the replica,
+    // which may not have the watermark yet, and the save would then reset it
+    private void ensureWatermark() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!watermarkRepository.existsById(PAYMENTS_ROLLUP)) {
+                RollupWatermark watermark = new RollupWatermark();
+                watermark.setRollupName(PAYMENTS_ROLLUP);
+                watermark.setLastDate(START);
+                watermark.setLastId(0);
+                watermark.setUpdatedAt(LocalDateTime.now());
+                watermarkRepository.save(watermark);
+            }
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartcampusmng.campusmanager.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.Generator;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Ids for rows written with plain JDBC into tables whose entities use pooled generators. They
+ * come from the same generator Hibernate uses, so batched JDBC inserts and {@code save()} never
+ * hand out the same id.
+ */
+@Service
+public class EntityIdAllocator {
+    private final EntityManager entityManager;
+
+    @Autowired
+    public EntityIdAllocator(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextId(Class<?> entityType) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Generator generator = session.getFactory().getMappingMetamodel()
+            .getEntityDescriptor(entityType).getGenerator();
+        if (!(generator instanceof IdentifierGenerator identifierGenerator)) {
+            throw new IllegalStateException(entityType.getSimpleName() + " ids are assigned by the database");
+        }
+        return ((Number) identifierGenerator.generate(session, null)).longValue();
+    }
+}
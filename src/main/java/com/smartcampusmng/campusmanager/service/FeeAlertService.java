@@ -1,25 +1,88 @@
 package com.smartcampusmng.campusmanager.service;
 
+import com.smartcampusmng.campusmanager.datasource.ReadYourWrites;
+import com.smartcampusmng.campusmanager.dto.AlertCursor;
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
 import com.smartcampusmng.campusmanager.entity.FeeAlert;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.UnreadAlertCount;
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.repository.FeeAlertRepository;
+import com.smartcampusmng.campusmanager.repository.UnreadAlertCountRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
+@Timed("campus.service")
 public class FeeAlertService {
+    private static final String INSERT_ALERT =
+        "INSERT INTO fee_alerts (alert_id, student_id, student_fee_id, sent_by, alert_date, message) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String ADD_UNREAD =
+        "INSERT INTO unread_alert_counts (student_id, unread_count, updated_at) VALUES (?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE unread_count = unread_count + VALUES(unread_count), updated_at = VALUES(updated_at)";
+
+    // One row per unread alert about to be deleted, locked so it can't be marked read in the meantime
+    private static final String LOCK_UNREAD_OF_FEES =
+        "SELECT student_id FROM fee_alerts WHERE student_fee_id IN (:ids) AND read_at IS NULL FOR UPDATE";
+
+    private static final String LOCK_UNREAD_ALERT =
+        "SELECT student_id FROM fee_alerts WHERE alert_id = ? AND read_at IS NULL FOR UPDATE";
+
     private final FeeAlertRepository feeAlertRepository;
+    private final UnreadAlertCountRepository unreadAlertCountRepository;
     private final StudentFeeService studentFeeService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final EntityIdAllocator entityIdAllocator;
+    private final ReadYourWrites readYourWrites;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter alertsSent;
 
     @Autowired
-    public FeeAlertService(FeeAlertRepository feeAlertRepository, StudentFeeService studentFeeService) {
+    public FeeAlertService(FeeAlertRepository feeAlertRepository,
+                           UnreadAlertCountRepository unreadAlertCountRepository,
+                           StudentFeeService studentFeeService,
+                           NotificationOutboxService notificationOutboxService,
+                           EntityIdAllocator entityIdAllocator, ReadYourWrites readYourWrites,
+                           JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
         this.feeAlertRepository = feeAlertRepository;
+        this.unreadAlertCountRepository = unreadAlertCountRepository;
         this.studentFeeService = studentFeeService;
+        this.notificationOutboxService = notificationOutboxService;
+        this.entityIdAllocator = entityIdAllocator;
+        this.readYourWrites = readYourWrites;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.alertsSent = Counter.builder("fees.alerts.sent")
+            .description("Fee alerts sent to students")
+            .register(meterRegistry);
     }
 
     @Transactional
@@ -29,10 +92,10 @@ public class FeeAlertService {
             throw new RuntimeException("Alert already sent to this student for this fee");
         }
 
-        // Mark the fee as alerted
-        if (studentFee.getStatus() == StudentFee.PaymentStatus.PENDING) {
+        // Mark the fee as alerted, with an UPDATE so a stale copy of the fee can't overwrite newer changes
+        if (StudentFeeService.UNPAID.contains(studentFee.getStatus())) {
+            studentFeeService.markFeesAlerted(List.of(studentFee.getStudentFeeId()));
             studentFee.setAlerted(true);
-            studentFeeService.save(studentFee);
         }
 
         FeeAlert alert = new FeeAlert();
@@ -42,28 +105,192 @@ public class FeeAlertService {
         alert.setAlertDate(LocalDateTime.now());
         alert.setMessage(message);
 
-        return feeAlertRepository.save(alert);
+        FeeAlert saved;
+        try {
+            saved = feeAlertRepository.saveAndFlush(alert);
+        } catch (DataIntegrityViolationException e) {
+            // The same alert was sent concurrently; the unique key on sender and fee caught it
+            throw new RuntimeException("Alert already sent to this student for this fee");
+        }
+        // Queue the email with the alert so it is sent only if the alert commits
+        notificationOutboxService.enqueueFeeAlerts(List.of(studentFee), message);
+        addUnread(List.of(student.getUserId()), 1);
+        alertsSent.increment();
+        readYourWrites.wrote();
+        // Reaches the student's open views only once the alert has committed
+        eventPublisher.publishEvent(new FeeAlertsCreated(List.of(
+            delivery(saved.getAlertId(), studentFee, saved.getAlertDate(), message))));
+        return saved;
+    }
+
+    /**
+     * Sends the same alert for many fees at once. Duplicates are found with one query, the new
+     * alerts and their outbox rows go in as batched INSERTs and the fees are flagged as alerted
+     * with one UPDATE, all in a single transaction.
+     *
+     * @return one result per fee, telling whether the alert was sent or had been sent before
+     */
+    @Transactional
+    public List<AlertResult> createAlerts(Collection<StudentFee> fees, User sentBy, String message) {
+        if (fees.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> feeIds = fees.stream().map(StudentFee::getStudentFeeId).toList();
+        Set<Long> alreadyAlerted = new HashSet<>(feeAlertRepository.findAlertedFeeIds(sentBy, feeIds));
+
+        Timestamp alertDate = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> alertRows = new ArrayList<>();
+        List<StudentFee> alertedFees = new ArrayList<>();
+        List<FeeAlertsCreated.Delivery> deliveries = new ArrayList<>();
+        List<AlertResult> results = new ArrayList<>();
+        for (StudentFee fee : fees) {
+            // The same fee may be passed twice; only the first one counts
+            if (!alreadyAlerted.add(fee.getStudentFeeId())) {
+                results.add(new AlertResult(fee, AlertOutcome.ALREADY_SENT));
+                continue;
+            }
+            long alertId = entityIdAllocator.nextId(FeeAlert.class);
+            alertRows.add(new Object[] {
+                alertId, fee.getStudent().getUserId(), fee.getStudentFeeId(), sentBy.getUserId(), alertDate, message
+            });
+            alertedFees.add(fee);
+            deliveries.add(delivery(alertId, fee, alertDate.toLocalDateTime(), message));
+            results.add(new AlertResult(fee, AlertOutcome.SENT));
+        }
+
+        if (!alertRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ALERT, alertRows);
+            studentFeeService.markFeesAlerted(alertedFees.stream().map(StudentFee::getStudentFeeId).toList());
+            notificationOutboxService.enqueueFeeAlerts(alertedFees, message);
+            addUnread(alertedFees.stream().map(fee -> fee.getStudent().getUserId()).toList(), 1);
+            alertsSent.increment(alertedFees.size());
+            // The sender's grid is reloaded next and must no longer list these fees
+            readYourWrites.wrote();
+            eventPublisher.publishEvent(new FeeAlertsCreated(deliveries));
+        }
+        return results;
     }
 
+    @Transactional(readOnly = true)
     public List<FeeAlert> getAlertsForStudentAndFee(User student, StudentFee studentFee) {
         return feeAlertRepository.findByStudentAndStudentFee(student, studentFee);
     }
 
+    @Transactional(readOnly = true)
     public boolean hasAlertForFee(StudentFee studentFee, User sentBy) {
         return feeAlertRepository.existsByStudentAndStudentFeeAndSentBy(
             studentFee.getStudent(), studentFee, sentBy);
     }
 
-    public List<FeeAlert> getAlertsBySentBy(User sentBy) {
-        return feeAlertRepository.findBySentBy(sentBy);
+    /**
+     * A page of the alerts {@code sentBy} has sent, newest first: the first page when
+     * {@code before} is null, otherwise the alerts after that position.
+     */
+    @Transactional(readOnly = true)
+    public List<SentAlertRow> getSentAlertRows(User sentBy, AlertCursor before, int limit) {
+        if (before == null) {
+            return feeAlertRepository.findSentAlertRows(sentBy, PageRequest.of(0, limit));
+        }
+        return feeAlertRepository.findSentAlertRowsBefore(sentBy, before.alertDate(), before.alertId(),
+            PageRequest.of(0, limit));
     }
 
-    public List<FeeAlert> getAlertsForStudent(User student) {
-        return feeAlertRepository.findByStudent(student);
+    /**
+     * A page of the student's alert inbox, newest first, paged like {@link #getSentAlertRows}.
+     */
+    @Transactional(readOnly = true)
+    public List<StudentAlertRow> getStudentAlertRows(User student, AlertCursor before, int limit) {
+        if (before == null) {
+            return feeAlertRepository.findStudentAlertRows(student, PageRequest.of(0, limit));
+        }
+        return feeAlertRepository.findStudentAlertRowsBefore(student, before.alertDate(), before.alertId(),
+            PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public int getUnreadCount(Long studentId) {
+        return unreadAlertCountRepository.findById(studentId).map(UnreadAlertCount::getUnreadCount).orElse(0);
+    }
+
+    /**
+     * Marks the student's alerts with the given ids as read; alerts read before are left alone.
+     *
+     * @return the number of alerts that were unread
+     */
+    @Transactional
+    public int markRead(User student, Collection<Long> alertIds) {
+        if (alertIds.isEmpty()) {
+            return 0;
+        }
+        return markedRead(student, feeAlertRepository.markRead(student, alertIds, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public int markAllRead(User student) {
+        return markedRead(student, feeAlertRepository.markAllRead(student, LocalDateTime.now()));
+    }
+
+    // The UPDATE counts only the rows it changed, so the counter drops by exactly that many
+    private int markedRead(User student, int marked) {
+        if (marked > 0) {
+            addUnread(Collections.nCopies(marked, student.getUserId()), -1);
+            readYourWrites.wrote();
+        }
+        return marked;
     }
 
     @Transactional
     public void deleteAlert(FeeAlert alert) {
+        // Whether the alert is unread comes from the row; the copy passed in may be older
+        List<Long> unread = jdbcTemplate.queryForList(LOCK_UNREAD_ALERT, Long.class, alert.getAlertId());
         feeAlertRepository.delete(alert);
+        addUnread(unread, -1);
+        readYourWrites.wrote();
+    }
+
+    @Transactional
+    public int deleteAlertsForFees(Collection<Long> studentFeeIds) {
+        if (studentFeeIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> unread = namedJdbcTemplate.queryForList(LOCK_UNREAD_OF_FEES,
+            new MapSqlParameterSource("ids", studentFeeIds), Long.class);
+        int deleted = feeAlertRepository.deleteByStudentFeeIds(studentFeeIds);
+        addUnread(unread, -1);
+        return deleted;
+    }
+
+    /**
+     * Adds {@code perAlert} to the unread counter of the student of each alert, one upsert per
+     * student. Students are written in id order so concurrent writers lock the counters in the
+     * same order.
+     */
+    private void addUnread(Collection<Long> studentIds, int perAlert) {
+        Map<Long, Integer> byStudent = new TreeMap<>();
+        for (Long studentId : studentIds) {
+            byStudent.merge(studentId, perAlert, Integer::sum);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        byStudent.forEach((studentId, delta) -> rows.add(new Object[] {studentId, delta, now}));
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_UNREAD, rows);
+        }
+    }
+
+    private static FeeAlertsCreated.Delivery delivery(Long alertId, StudentFee fee, LocalDateTime alertDate,
+                                                      String message) {
+        StudentAlertRow row = new StudentAlertRow(alertId, fee.getFeeType().getFeeName(), fee.getSemester(),
+            fee.getAcademicYear(), fee.getAmount(), fee.getDueDate(), alertDate, message, null);
+        return new FeeAlertsCreated.Delivery(fee.getStudent().getUserId(), row);
+    }
+
+    public enum AlertOutcome {
+        SENT,
+        ALREADY_SENT
+    }
+
+    public record AlertResult(StudentFee fee, AlertOutcome outcome) {
     }
-} 
\ No newline at end of file
+}
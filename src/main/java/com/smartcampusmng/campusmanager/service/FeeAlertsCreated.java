@@ -0,0 +1,15 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
+
+import java.util.List;
+
+/**
+ * Published by {@link FeeAlertService} for the alerts a transaction creates, and delivered to
+ * the {@link AlertInbox} once that transaction has committed.
+ */
+public record FeeAlertsCreated(List<Delivery> deliveries) {
+
+    public record Delivery(Long studentId, StudentAlertRow row) {
+    }
+}
@@ -1,19 +1,24 @@
 package com.smartcampusmng.campusmanager.service;
 
 import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.repository.FeeProvisioningRepository;
 import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
 public class FeeTypeService {
     private final FeeTypeRepository feeTypeRepository;
+    private final FeeProvisioningRepository feeProvisioningRepository;
 
     @Autowired
-    public FeeTypeService(FeeTypeRepository feeTypeRepository) {
+    public FeeTypeService(FeeTypeRepository feeTypeRepository, FeeProvisioningRepository feeProvisioningRepository) {
         this.feeTypeRepository = feeTypeRepository;
+        this.feeProvisioningRepository = feeProvisioningRepository;
     }
 
     public List<FeeType> getAllFeeTypes() {
@@ -23,4 +28,27 @@ public class FeeTypeService {
     public FeeType getFeeTypeById(Long id) {
         return feeTypeRepository.findById(id).orElse(null);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Saves a new or changed fee type. A new fee type, or one whose frequency changed, alters which
+     * fees a term gets, so all provisioning watermarks are dropped and each term is provisioned
+     * again on its next view. Other edits such as the name, description or amount leave them be.
+     */
+    @Transactional
+    public FeeType saveFeeType(FeeType feeType) {
+        boolean changesProvisioning = feeType.getFeeTypeId() == null
+            || feeTypeRepository.findFrequencyById(feeType.getFeeTypeId())
+                .map(stored -> stored != feeType.getFrequency())
+                .orElse(true);
+        LocalDateTime now = LocalDateTime.now();
+        if (feeType.getCreatedAt() == null) {
+            feeType.setCreatedAt(now);
+        }
+        feeType.setUpdatedAt(now);
+        FeeType saved = feeTypeRepository.save(feeType);
+        if (changesProvisioning) {
+            feeProvisioningRepository.deleteAllInBatch();
+        }
+        return saved;
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.NotificationOutbox;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes outbox rows for fee alerts. It only joins an existing transaction, so a notification
+ * is queued exactly when its alert commits.
+ */
+@Service
+public class NotificationOutboxService {
+    private static final String INSERT_OUTBOX =
+        "INSERT INTO notification_outbox (student_fee_id, recipient, subject, body, status, attempts, " +
+        "next_attempt_at, created_at) VALUES (?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public NotificationOutboxService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Queues one email per fee. Students without an email address are skipped.
+     *
+     * @return the number of notifications queued
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int enqueueFeeAlerts(Collection<StudentFee> fees, String message) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (StudentFee fee : fees) {
+            String email = fee.getStudent().getEmail();
+            if (email == null || email.isBlank()) {
+                continue;
+            }
+            rows.add(new Object[] {
+                fee.getStudentFeeId(), email, "Fee reminder: " + fee.getFeeType().getFeeName(),
+                buildBody(fee, message), NotificationOutbox.DeliveryStatus.PENDING.name(), now, now
+            });
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_OUTBOX, rows);
+        }
+        return rows.size();
+    }
+
+    private String buildBody(StudentFee fee, String message) {
+        StringBuilder body = new StringBuilder();
+        body.append("Dear ").append(fee.getStudent().getFirstName()).append(",\n\n");
+        body.append(message).append("\n\n");
+        body.append("Fee: ").append(fee.getFeeType().getFeeName()).append('\n');
+        if (fee.getSemester() != null) {
+            body.append("Semester: ").append(fee.getSemester()).append('\n');
+        }
+        if (fee.getAcademicYear() != null) {
+            body.append("Academic Year: ").append(fee.getAcademicYear()).append('\n');
+        }
+        body.append("Amount: ").append(String.format("%.2f", fee.getAmount())).append('\n');
+        body.append("Due Date: ").append(fee.getDueDate()).append('\n');
+        return body.toString();
+    }
+}
@@ -0,0 +1,224 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.NotificationOutbox;
+import com.smartcampusmng.campusmanager.notification.Notifier;
+import com.smartcampusmng.campusmanager.notification.OutboundMessage;
+import com.smartcampusmng.campusmanager.repository.NotificationOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the notification outbox. Each run claims a batch of due rows with one UPDATE that
+ * stamps them with a claim token, hands them to the {@link Notifier} on the notification
+ * executor and records the outcome. Failed deliveries are retried with exponential backoff
+ * until the attempt limit is reached, after which the row is left as FAILED. Rows stuck in
+ * SENDING, e.g. after a crash, are claimed again once their claim has expired; the dispatcher
+ * stops waiting for a batch at half the claim timeout so its outcomes are recorded before that.
+ */
+@Service
+public class OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final String CLAIM_BATCH =
+        "UPDATE notification_outbox SET status = 'SENDING', claim_token = ?, claimed_at = ? " +
+        "WHERE (status = 'PENDING' AND next_attempt_at <= ?) OR (status = 'SENDING' AND claimed_at < ?) " +
+        "ORDER BY outbox_id LIMIT ?";
+
+    private static final String SELECT_CLAIMED =
+        "SELECT outbox_id, recipient, subject, body, attempts FROM notification_outbox WHERE claim_token = ?";
+
+    private static final String MARK_SENT =
+        "UPDATE notification_outbox SET status = 'SENT', attempts = attempts + 1, sent_at = ?, " +
+        "claim_token = NULL, last_error = NULL WHERE outbox_id = ? AND claim_token = ?";
+
+    private static final String MARK_FAILED =
+        "UPDATE notification_outbox SET status = ?, attempts = attempts + 1, next_attempt_at = ?, " +
+        "claim_token = NULL, last_error = ? WHERE outbox_id = ? AND claim_token = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Notifier notifier;
+    private final ThreadPoolTaskExecutor executor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter lostClaimCounter;
+
+    @Autowired
+    public OutboxDispatcher(JdbcTemplate jdbcTemplate, Notifier notifier,
+                            @Qualifier("notificationExecutor") ThreadPoolTaskExecutor executor,
+                            NotificationOutboxRepository outboxRepository, MeterRegistry meterRegistry,
+                            @Value("${notifications.outbox.batch-size:100}") int batchSize,
+                            @Value("${notifications.outbox.max-attempts:5}") int maxAttempts,
+                            @Value("${notifications.outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                            @Value("${notifications.outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                            @Value("${notifications.outbox.claim-timeout-seconds:300}") long claimTimeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notifier = notifier;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.sentCounter = Counter.builder("notifications.outbox.sent")
+            .description("Notifications delivered")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("notifications.outbox.failed")
+            .description("Failed notification delivery attempts")
+            .register(meterRegistry);
+        this.lostClaimCounter = Counter.builder("notifications.outbox.claims.lost")
+            .description("Delivery outcomes not recorded because the claim had expired and was taken over")
+            .register(meterRegistry);
+        Gauge.builder("notifications.outbox.pending",
+                () -> outboxRepository.countByStatus(NotificationOutbox.DeliveryStatus.PENDING))
+            .description("Notifications waiting to be delivered")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-delay-ms:5000}")
+    public void scheduledDrain() {
+        drain();
+    }
+
+    /**
+     * Delivers due notifications batch by batch until no full batch is left.
+     *
+     * @return the number of notifications attempted
+     */
+    public int drain() {
+        int attempted = 0;
+        while (true) {
+            int claimed = dispatchBatch();
+            attempted += claimed;
+            if (claimed < batchSize) {
+                break;
+            }
+        }
+        if (attempted > 0) {
+            log.info("Outbox dispatcher attempted {} notifications", attempted);
+        }
+        return attempted;
+    }
+
+    private int dispatchBatch() {
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        int claimed = jdbcTemplate.update(CLAIM_BATCH, token, Timestamp.valueOf(now), Timestamp.valueOf(now),
+            Timestamp.valueOf(now.minus(claimTimeout)), batchSize);
+        if (claimed == 0) {
+            return 0;
+        }
+
+        List<ClaimedRow> rows = jdbcTemplate.query(SELECT_CLAIMED, (rs, rowNum) -> new ClaimedRow(
+            new OutboundMessage(rs.getLong("outbox_id"), rs.getString("recipient"),
+                rs.getString("subject"), rs.getString("body")),
+            rs.getInt("attempts")), token);
+
+        // One deadline for the whole batch, well inside the claim
+        long deadline = System.nanoTime() + claimTimeout.toNanos() / 2;
+        List<Future<?>> deliveries = new ArrayList<>();
+        for (ClaimedRow row : rows) {
+            deliveries.add(executor.submit(() -> notifier.send(row.message())));
+        }
+
+        List<Object[]> sent = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ClaimedRow row = rows.get(i);
+            Future<?> delivery = deliveries.get(i);
+            try {
+                delivery.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sent.add(new Object[] { Timestamp.valueOf(LocalDateTime.now()), row.message().outboxId(), token });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                delivery.cancel(true);
+                failed.add(failureRow(row, token, e));
+            } catch (ExecutionException | TimeoutException e) {
+                Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                // A delivery still queued past the deadline is retried later rather than sent late
+                delivery.cancel(true);
+                log.warn("Delivery of notification {} failed: {}", row.message().outboxId(), cause.toString());
+                failed.add(failureRow(row, token, cause));
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            sentCounter.increment(sent.size() - recordOutcomes(MARK_SENT, sent, token));
+        }
+        if (!failed.isEmpty()) {
+            failedCounter.increment(failed.size() - recordOutcomes(MARK_FAILED, failed, token));
+        }
+        return claimed;
+    }
+
+    /**
+     * Writes the outcomes of a batch and counts the rows whose claim token no longer matched:
+     * the claim expired and another run took the row over, so it may be delivered twice.
+     *
+     * @return the number of outcomes that were not recorded
+     */
+    private int recordOutcomes(String sql, List<Object[]> outcomes, String token) {
+        int[] updated = jdbcTemplate.batchUpdate(sql, outcomes);
+        int lost = 0;
+        for (int count : updated) {
+            if (count == 0) {
+                lost++;
+            }
+        }
+        if (lost > 0) {
+            lostClaimCounter.increment(lost);
+            log.warn("Lost the claim on {} of {} notifications of batch {}; their claim expired before the "
+                + "outcome was recorded", lost, outcomes.size(), token);
+        }
+        return lost;
+    }
+
+    private Object[] failureRow(ClaimedRow row, String token, Throwable error) {
+        int attempts = row.attempts() + 1;
+        NotificationOutbox.DeliveryStatus status = attempts >= maxAttempts
+            ? NotificationOutbox.DeliveryStatus.FAILED
+            : NotificationOutbox.DeliveryStatus.PENDING;
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > 1000) {
+            message = message.substring(0, 1000);
+        }
+        return new Object[] {
+            status.name(), Timestamp.valueOf(LocalDateTime.now().plus(backoffFor(attempts))),
+            message, row.message().outboxId(), token
+        };
+    }
+
+    // 30s, 1m, 2m, 4m, ... capped at the maximum
+    private Duration backoffFor(int attempts) {
+        Duration delay = baseBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private record ClaimedRow(OutboundMessage message, int attempts) {
+    }
+}
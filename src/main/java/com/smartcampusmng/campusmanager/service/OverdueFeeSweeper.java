@@ -0,0 +1,124 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves PENDING fees past their due date to OVERDUE for all students on a schedule, rather than
+ * per student when they happen to open a page. The table is swept in primary key ranges, one
+ * short transaction per range, so no statement holds row locks for long. Each range locks the
+ * fees it is about to change so the balance ledger can be moved from pending to overdue with them.
+ */
+@Service
+public class OverdueFeeSweeper {
+    private static final Logger log = LoggerFactory.getLogger(OverdueFeeSweeper.class);
+
+    private static final String SELECT_ID_RANGE =
+        "SELECT MIN(student_fee_id) AS min_id, MAX(student_fee_id) AS max_id FROM student_fees " +
+        "WHERE status = ? AND due_date < ?";
+
+    private static final String LOCK_DUE_FEES =
+        "SELECT student_id, amount FROM student_fees " +
+        "WHERE student_fee_id BETWEEN ? AND ? AND status = ? AND due_date < ? FOR UPDATE";
+
+    private static final String MARK_OVERDUE =
+        "UPDATE student_fees SET status = ?, version = version + 1, updated_at = ? " +
+        "WHERE student_fee_id BETWEEN ? AND ? AND status = ? AND due_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StudentBalanceService studentBalanceService;
+    private final int chunkSize;
+    private final int graceDays;
+    private final Counter rowsChanged;
+    private final Timer sweepTimer;
+
+    @Autowired
+    public OverdueFeeSweeper(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             StudentBalanceService studentBalanceService, MeterRegistry meterRegistry,
+                             @Value("${fees.overdue.chunk-size:1000}") int chunkSize,
+                             @Value("${fees.overdue.grace-days:0}") int graceDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.studentBalanceService = studentBalanceService;
+        this.chunkSize = chunkSize;
+        this.graceDays = graceDays;
+        this.rowsChanged = Counter.builder("fees.overdue.sweep.rows")
+            .description("Fees moved from PENDING to OVERDUE")
+            .register(meterRegistry);
+        this.sweepTimer = Timer.builder("fees.overdue.sweep")
+            .description("Time taken by one overdue sweep")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${fees.overdue.sweep-cron:0 */15 * * * *}")
+    public void scheduledSweep() {
+        sweep();
+    }
+
+    /**
+     * Marks every PENDING fee whose due date (plus the grace period) has passed as OVERDUE.
+     *
+     * @return the number of fees changed
+     */
+    public long sweep() {
+        return sweepTimer.record(() -> {
+            Date cutoff = Date.valueOf(LocalDate.now().minusDays(graceDays));
+            String pending = StudentFee.PaymentStatus.PENDING.name();
+
+            Map<String, Object> range = jdbcTemplate.queryForMap(SELECT_ID_RANGE, pending, cutoff);
+            if (range.get("min_id") == null) {
+                return 0L;
+            }
+            long minId = ((Number) range.get("min_id")).longValue();
+            long maxId = ((Number) range.get("max_id")).longValue();
+
+            long changed = 0;
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long rangeStart = from;
+                long to = Math.min(from + chunkSize - 1, maxId);
+                Integer updated = transactionTemplate.execute(status -> sweepRange(rangeStart, to, cutoff));
+                if (updated != null) {
+                    rowsChanged.increment(updated);
+                    changed += updated;
+                }
+            }
+
+            log.info("Overdue sweep marked {} fees as OVERDUE (ids {}-{})", changed, minId, maxId);
+            return changed;
+        });
+    }
+
+    private int sweepRange(long from, long to, Date cutoff) {
+        String pending = StudentFee.PaymentStatus.PENDING.name();
+        List<StudentBalanceService.BalanceDelta> balanceChanges = jdbcTemplate.query(LOCK_DUE_FEES,
+            (rs, rowNum) -> StudentBalanceService.BalanceDelta.transition(rs.getLong("student_id"),
+                rs.getDouble("amount"), StudentFee.PaymentStatus.PENDING, StudentFee.PaymentStatus.OVERDUE),
+            from, to, pending, cutoff);
+        if (balanceChanges.isEmpty()) {
+            return 0;
+        }
+        int updated = jdbcTemplate.update(MARK_OVERDUE,
+            StudentFee.PaymentStatus.OVERDUE.name(), Timestamp.valueOf(LocalDateTime.now()),
+            from, to, pending, cutoff);
+        studentBalanceService.applyDeltas(balanceChanges);
+        return updated;
+    }
+}
@@ -0,0 +1,175 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
+import com.smartcampusmng.campusmanager.repository.PaymentRepository;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Exports all payments of a term for auditors. Rows come from a forward-only cursor over the
+ * flat {@link PaymentRow} projection and are written to the output as they are read, so heap
+ * use does not grow with the number of payments. XLSX uses POI's streaming workbook, which
+ * keeps only a small window of rows in memory and spills the rest to a temporary file.
+ * Text typed in by users (names, references) is written so that a spreadsheet never runs it as
+ * a formula: CSV fields that start like one get a leading apostrophe, XLSX cells are plain strings.
+ */
+@Service
+public class PaymentExportService {
+    private static final Logger log = LoggerFactory.getLogger(PaymentExportService.class);
+
+    private static final String[] HEADERS = {
+        "Payment ID", "Receipt Number", "Payment Date", "Student ID", "Student Name", "Fee Type",
+        "Semester", "Academic Year", "Amount", "Payment Method", "Transaction Reference", "Processed By"
+    };
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int XLSX_WINDOW_SIZE = 100;
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    private final PaymentRepository paymentRepository;
+
+    @Autowired
+    public PaymentExportService(PaymentRepository paymentRepository) {
+        this.paymentRepository = paymentRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public ExportResult writeCsv(String semester, String academicYear, OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, HEADERS);
+        try (Stream<PaymentRow> payments = paymentRepository.streamRowsByTerm(semester, academicYear)) {
+            Iterator<PaymentRow> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                writeCsvLine(writer, values(iterator.next(), PaymentExportService::neutralizeFormula));
+                rows++;
+            }
+        }
+        writer.flush();
+        return finish("CSV", semester, academicYear, rows, startNanos);
+    }
+
+    @Transactional(readOnly = true)
+    public ExportResult writeXlsx(String semester, String academicYear, OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+        long rows = 0;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try (Stream<PaymentRow> payments = paymentRepository.streamRowsByTerm(semester, academicYear)) {
+            Sheet sheet = workbook.createSheet("Payments");
+            CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < HEADERS.length; i++) {
+                header.createCell(i).setCellValue(HEADERS[i]);
+            }
+
+            Iterator<PaymentRow> iterator = payments.iterator();
+            while (iterator.hasNext()) {
+                PaymentRow payment = iterator.next();
+                Row row = sheet.createRow((int) ++rows);
+                // String cells are never evaluated, so the values go in as they are
+                String[] values = values(payment, UnaryOperator.identity());
+                for (int i = 0; i < values.length; i++) {
+                    Cell cell = row.createCell(i);
+                    if (i == 8 && payment.amount() != null) {
+                        cell.setCellValue(payment.amount());
+                        cell.setCellStyle(amountStyle);
+                    } else {
+                        cell.setCellValue(values[i]);
+                    }
+                }
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        out.flush();
+        return finish("XLSX", semester, academicYear, rows, startNanos);
+    }
+
+    // text is applied to the values that come from user input
+    private String[] values(PaymentRow payment, UnaryOperator<String> text) {
+        return new String[] {
+            String.valueOf(payment.paymentId()),
+            text.apply(payment.receiptNumber()),
+            payment.paymentDate() == null ? "" : payment.paymentDate().format(DATE_FORMAT),
+            text.apply(payment.studentUsername()),
+            text.apply(payment.studentName()),
+            text.apply(payment.feeName()),
+            text.apply(payment.semester()),
+            text.apply(payment.academicYear()),
+            payment.amount() == null ? "" : String.format("%.2f", payment.amount()),
+            payment.paymentMethod() == null ? "" : payment.paymentMethod().name(),
+            text.apply(payment.transactionReference()),
+            text.apply(payment.recordedByName())
+        };
+    }
+
+    /**
+     * Prefixes an apostrophe to a value a spreadsheet would read as a formula, such as
+     * {@code =HYPERLINK(...)} in a transaction reference.
+     */
+    static String neutralizeFormula(String value) {
+        if (value == null || value.isEmpty() || FORMULA_START.indexOf(value.charAt(0)) < 0) {
+            return value;
+        }
+        return "'" + value;
+    }
+
+    private void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private ExportResult finish(String format, String semester, String academicYear, long rows, long startNanos) {
+        ExportResult result = new ExportResult(rows, Duration.ofNanos(System.nanoTime() - startNanos));
+        log.info("{} export of {} {}: {} rows in {} ms ({} rows/sec)", format, semester, academicYear,
+            rows, result.elapsed().toMillis(), String.format("%.1f", result.rowsPerSecond()));
+        return result;
+    }
+
+    public record ExportResult(long rows, Duration elapsed) {
+        public double rowsPerSecond() {
+            long millis = Math.max(elapsed.toMillis(), 1);
+            return rows * 1000.0 / millis;
+        }
+    }
+}
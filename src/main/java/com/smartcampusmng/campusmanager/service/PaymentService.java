@@ -1,37 +1,128 @@
 package com.smartcampusmng.campusmanager.service;
 
+import com.smartcampusmng.campusmanager.datasource.ReadYourWrites;
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
 import com.smartcampusmng.campusmanager.entity.Payment;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
 import com.smartcampusmng.campusmanager.entity.User;
-import com.smartcampusmng.campusmanager.entity.FeeAlert;
 import com.smartcampusmng.campusmanager.repository.PaymentRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("campus.service")
 public class PaymentService {
+    private static final String INSERT_PAYMENT =
+        "INSERT INTO payments (payment_id, student_id, student_fee_id, payment_date, amount, payment_method, " +
+        "transaction_reference, receipt_number, recorded_by, remarks, idempotency_key) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // A fee that keeps changing for another reason (an alert, the overdue sweep) is retried this often
+    private static final int MAX_ATTEMPTS = 3;
+
     private final PaymentRepository paymentRepository;
     private final StudentFeeService studentFeeService;
     private final FeeAlertService feeAlertService;
+    private final ReceiptNumberAllocator receiptNumberAllocator;
+    private final UserRepository userRepository;
+    private final EntityIdAllocator entityIdAllocator;
+    private final ReadYourWrites readYourWrites;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter paymentsRecorded;
+    private final Counter amountRecorded;
 
     @Autowired
     public PaymentService(PaymentRepository paymentRepository, 
                          StudentFeeService studentFeeService,
-                         FeeAlertService feeAlertService) {
+                         FeeAlertService feeAlertService,
+                         ReceiptNumberAllocator receiptNumberAllocator,
+                         UserRepository userRepository,
+                         EntityIdAllocator entityIdAllocator,
+                         ReadYourWrites readYourWrites,
+                         JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry) {
         this.paymentRepository = paymentRepository;
         this.studentFeeService = studentFeeService;
         this.feeAlertService = feeAlertService;
+        this.receiptNumberAllocator = receiptNumberAllocator;
+        this.userRepository = userRepository;
+        this.entityIdAllocator = entityIdAllocator;
+        this.readYourWrites = readYourWrites;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.paymentsRecorded = Counter.builder("payments.recorded")
+            .description("Payments recorded, one per fee paid")
+            .register(meterRegistry);
+        this.amountRecorded = Counter.builder("payments.amount")
+            .description("Sum of the payments recorded")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Records the payment of one fee. The fee is marked PAID only if it hasn't changed since it was
+     * loaded, without locking it first. Submitting the same idempotency key again, or paying a fee
+     * that someone else has just paid, returns the payment already recorded rather than a second
+     * one. A fee that changed in some other way is reloaded and tried again, as is a payment that
+     * lost a lock wait or deadlock to a concurrent one.
+     */
+    public Payment processPayment(StudentFee fee, User student, User recordedBy,
+                                  Payment.PaymentMethod method, String transactionRef, String idempotencyKey) {
+        String key = paymentKey(idempotencyKey, fee);
+        // Taken before the transaction and kept across retries; a number that ends up unused is a gap
+        String receiptNumber = receiptNumberAllocator.next();
+        StudentFee current = fee;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            StudentFee toPay = current;
+            try {
+                Payment payment = transactionTemplate.execute(
+                    status -> recordPayment(toPay, student, recordedBy, method, transactionRef, key, receiptNumber));
+                paymentsRecorded.increment();
+                amountRecorded.increment(toPay.getAmount());
+                fee.setStatus(StudentFee.PaymentStatus.PAID);
+                readYourWrites.wrote();
+                return payment;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                // Whatever beat the failed transaction has committed on the primary, which the lookups read
+                List<Payment> recorded = findRecordedPayments(List.of(fee), List.of(key));
+                if (!recorded.isEmpty()) {
+                    fee.setStatus(StudentFee.PaymentStatus.PAID);
+                    readYourWrites.wrote();
+                    return recorded.get(0);
+                }
+                current = reloadUnpaid(List.of(fee)).get(0);
+            }
+        }
+        throw new RuntimeException("The fee kept changing while it was being paid, please try again");
     }
 
-    @Transactional
-    public Payment processPayment(StudentFee fee, User student, User recordedBy, 
-                                Payment.PaymentMethod method, String transactionRef) {
-        // Create payment record
+    private Payment recordPayment(StudentFee fee, User student, User recordedBy,
+                                  Payment.PaymentMethod method, String transactionRef, String key,
+                                  String receiptNumber) {
+        studentFeeService.markFeesPaid(List.of(fee));
+
         Payment payment = new Payment();
         payment.setStudent(student);
         payment.setStudentFee(fee);
@@ -39,38 +130,222 @@ public class PaymentService {
         payment.setAmount(fee.getAmount());
         payment.setPaymentMethod(method);
         payment.setTransactionReference(transactionRef);
-        payment.setReceiptNumber(generateReceiptNumber());
+        payment.setReceiptNumber(receiptNumber);
         payment.setRecordedBy(recordedBy);
         payment.setRemarks("Payment processed for " + fee.getFeeType().getFeeName());
-
-        // Update fee status
-        studentFeeService.updateFeeStatus(fee, StudentFee.PaymentStatus.PAID);
+        payment.setIdempotencyKey(key);
 
         // Remove any existing alerts for this fee
-        List<FeeAlert> existingAlerts = feeAlertService.getAlertsForStudentAndFee(student, fee);
-        for (FeeAlert alert : existingAlerts) {
-            feeAlertService.deleteAlert(alert);
+        feeAlertService.deleteAlertsForFees(List.of(fee.getStudentFeeId()));
+        return paymentRepository.save(payment);
+    }
+
+    /**
+     * Pays several fees of one student as a single checkout. Everything happens in one
+     * transaction with a fixed number of round trips however many fees are selected: one batch of
+     * version-checked UPDATEs for the fees, one batched INSERT for the payments, one ledger upsert
+     * and one DELETE for their alerts. Either all fees end up paid or none do. A repeated or
+     * concurrent checkout of fees that are all paid already returns a receipt for the payments
+     * recorded first.
+     */
+    public CheckoutReceipt processPayments(List<StudentFee> fees, User student, User recordedBy,
+                                           Payment.PaymentMethod method, String transactionRef,
+                                           String idempotencyKey) {
+        if (fees.isEmpty()) {
+            throw new RuntimeException("No fees selected for payment");
         }
 
-        return paymentRepository.save(payment);
+        List<String> keys = fees.stream().map(fee -> paymentKey(idempotencyKey, fee)).toList();
+        List<String> receiptNumbers = receiptNumberAllocator.next(fees.size());
+        List<StudentFee> current = fees;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<StudentFee> toPay = current;
+            try {
+                CheckoutReceipt receipt = transactionTemplate.execute(
+                    status -> recordCheckout(toPay, keys, receiptNumbers, student, recordedBy, method,
+                        transactionRef));
+                paymentsRecorded.increment(fees.size());
+                amountRecorded.increment(receipt.total());
+                fees.forEach(fee -> fee.setStatus(StudentFee.PaymentStatus.PAID));
+                readYourWrites.wrote();
+                return receipt;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                List<Payment> recorded = findRecordedPayments(fees, keys);
+                if (recorded.size() == fees.size()) {
+                    fees.forEach(fee -> fee.setStatus(StudentFee.PaymentStatus.PAID));
+                    readYourWrites.wrote();
+                    return receiptFor(recorded, student);
+                }
+                current = reloadUnpaid(fees);
+            }
+        }
+        throw new RuntimeException("The fees kept changing while they were being paid, please try again");
+    }
+
+    private CheckoutReceipt recordCheckout(List<StudentFee> fees, List<String> keys, List<String> receiptNumbers,
+                                           User student, User recordedBy, Payment.PaymentMethod method,
+                                           String transactionRef) {
+        LocalDateTime paymentDate = LocalDateTime.now();
+        Timestamp paymentTimestamp = Timestamp.valueOf(paymentDate);
+        List<Long> feeIds = new ArrayList<>();
+        List<Object[]> paymentRows = new ArrayList<>();
+        List<ReceiptLine> lines = new ArrayList<>();
+
+        for (int i = 0; i < fees.size(); i++) {
+            StudentFee fee = fees.get(i);
+            String receiptNumber = receiptNumbers.get(i);
+            feeIds.add(fee.getStudentFeeId());
+            paymentRows.add(new Object[] {
+                entityIdAllocator.nextId(Payment.class), student.getUserId(), fee.getStudentFeeId(),
+                paymentTimestamp, fee.getAmount(), method.name(), transactionRef, receiptNumber, recordedBy.getUserId(),
+                "Payment processed for " + fee.getFeeType().getFeeName(), keys.get(i)
+            });
+            lines.add(new ReceiptLine(receiptNumber, fee.getFeeType().getFeeName(),
+                fee.getSemester(), fee.getAcademicYear(), fee.getAmount()));
+        }
+
+        studentFeeService.markFeesPaid(fees);
+        jdbcTemplate.batchUpdate(INSERT_PAYMENT, paymentRows);
+        feeAlertService.deleteAlertsForFees(feeIds);
+
+        return new CheckoutReceipt(student.getUsername(), student.getFirstName() + " " + student.getLastName(),
+            paymentDate, method, transactionRef, lines);
+    }
+
+    /**
+     * The payments recorded for these fees, looked up by idempotency key and, for fees paid under
+     * another key (a second tab, say), as the first payment of the fee. Read in a read-write
+     * transaction, so from the primary: the replica may not have the payment that won yet.
+     */
+    private List<Payment> findRecordedPayments(List<StudentFee> fees, List<String> keys) {
+        return transactionTemplate.execute(status -> {
+            List<Payment> recorded = paymentRepository.findByIdempotencyKeyIn(keys);
+            if (recorded.size() == fees.size()) {
+                return recorded;
+            }
+            return paymentRepository.findFirstPaymentsForFees(
+                fees.stream().map(StudentFee::getStudentFeeId).toList());
+        });
+    }
+
+    /**
+     * Fresh copies of the fees for another attempt, read from the primary like the recorded
+     * payments. Fails if any of them has been paid meanwhile, since that payment can't be handed
+     * back as the result of this one.
+     */
+    private List<StudentFee> reloadUnpaid(List<StudentFee> fees) {
+        List<StudentFee> loaded = transactionTemplate.execute(status -> studentFeeService.getFeesByIds(
+            fees.stream().map(StudentFee::getStudentFeeId).toList()));
+        Map<Long, StudentFee> reloaded = loaded.stream()
+            .collect(Collectors.toMap(StudentFee::getStudentFeeId, Function.identity()));
+        List<StudentFee> current = new ArrayList<>();
+        for (StudentFee fee : fees) {
+            StudentFee fresh = reloaded.get(fee.getStudentFeeId());
+            if (fresh == null || fresh.getStatus() == StudentFee.PaymentStatus.PAID) {
+                throw new RuntimeException("Some of the selected fees have been paid already, please reload them");
+            }
+            current.add(fresh);
+        }
+        return current;
+    }
+
+    private CheckoutReceipt receiptFor(List<Payment> payments, User student) {
+        Payment first = payments.get(0);
+        List<ReceiptLine> lines = payments.stream()
+            .map(payment -> new ReceiptLine(payment.getReceiptNumber(),
+                payment.getStudentFee().getFeeType().getFeeName(), payment.getStudentFee().getSemester(),
+                payment.getStudentFee().getAcademicYear(), payment.getAmount()))
+            .toList();
+        return new CheckoutReceipt(student.getUsername(), student.getFirstName() + " " + student.getLastName(),
+            first.getPaymentDate(), first.getPaymentMethod(), first.getTransactionReference(), lines);
+    }
+
+    // One key per payment row; callers that don't pass a key only get the version check
+    private String paymentKey(String idempotencyKey, StudentFee fee) {
+        String checkoutKey = idempotencyKey != null ? idempotencyKey : UUID.randomUUID().toString();
+        return checkoutKey + ":" + fee.getStudentFeeId();
     }
 
+    @Transactional(readOnly = true)
     public List<Payment> getPaymentsForStudent(User student) {
         return paymentRepository.findByStudent(student);
     }
 
+    @Transactional(readOnly = true)
     public List<Payment> getPaymentsForStudentAndSemester(
         User student, String semester, String academicYear) {
         return paymentRepository.findByStudentAndStudentFee_SemesterAndStudentFee_AcademicYear(
             student, semester, academicYear);
     }
 
+    @Transactional(readOnly = true)
     public List<Payment> getAllPaymentsBySemesterAndYear(String semester, String academicYear) {
         return paymentRepository.findByStudentFee_SemesterAndStudentFee_AcademicYear(
             semester, academicYear);
     }
 
-    private String generateReceiptNumber() {
-        return "RCPT-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    @Transactional(readOnly = true)
+    public List<PaymentRow> getPaymentRowsForStudentAndSemester(
+        User student, String semester, String academicYear) {
+        return paymentRepository.findRowsByStudentAndTerm(student, semester, academicYear);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentRow> getPaymentsBySemesterAndYear(String semester, String academicYear, Pageable pageable) {
+        return paymentRepository.findRowsByTerm(semester, academicYear, newestFirstIfUnsorted(pageable));
+    }
+
+    /**
+     * The next {@code limit} payments of the term with an id above {@code afterId}, in id order.
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentRow> getPaymentsBySemesterAndYearAfter(String semester, String academicYear,
+                                                              long afterId, int limit) {
+        return paymentRepository.findRowsByTermAfter(semester, academicYear, afterId, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public long countPaymentsBySemesterAndYear(String semester, String academicYear) {
+        return paymentRepository.countByStudentFee_SemesterAndStudentFee_AcademicYear(semester, academicYear);
+    }
+
+    /**
+     * Finds payments by exact receipt number, transaction reference or student username.
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentRow> searchPayments(String term, Pageable pageable) {
+        return paymentRepository.searchRows(term, resolveStudentId(term), newestFirstIfUnsorted(pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public long countSearchPayments(String term) {
+        return paymentRepository.countSearch(term, resolveStudentId(term));
+    }
+
+    private Long resolveStudentId(String username) {
+        return userRepository.findByUsername(username).map(User::getUserId).orElse(null);
+    }
+
+    private Pageable newestFirstIfUnsorted(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+            Sort.by(Sort.Direction.DESC, "paymentDate", "paymentId"));
+    }
+
+    public record ReceiptLine(String receiptNumber, String feeName, String semester,
+                              String academicYear, Double amount) {
+    }
+
+    /**
+     * One receipt covering every fee paid in a checkout.
+     */
+    public record CheckoutReceipt(String studentUsername, String studentName, LocalDateTime paymentDate,
+                                  Payment.PaymentMethod paymentMethod, String transactionReference,
+                                  List<ReceiptLine> lines) {
+        public double total() {
+            return lines.stream().mapToDouble(ReceiptLine::amount).sum();
+        }
     }
-} 
\ No newline at end of file
+}
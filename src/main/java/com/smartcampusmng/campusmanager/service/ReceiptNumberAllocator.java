@@ -0,0 +1,107 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.ReceiptSequence;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out receipt numbers such as {@code RCPT-2025-000123}, counting from 1 in each academic
+ * year (named by the year it starts in). Numbers come from a block reserved in
+ * {@link ReceiptSequence} in a transaction of its own, so the database is touched once per block
+ * and every node draws from a different range. Numbers left in a block when a node stops, or
+ * taken by a payment that rolled back, are never reused: receipts can have gaps but no duplicates.
+ *
+ * <p>Reserving a block needs a connection of its own, so take numbers before opening the
+ * transaction that uses them.
+ */
+@Service
+public class ReceiptNumberAllocator {
+    // The row lock taken by the upsert is held until the block is read back, so no other node sees the same range
+    private static final String RESERVE_BLOCK =
+        "INSERT INTO receipt_sequences (sequence_name, next_value, updated_at) VALUES (?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE next_value = next_value + ?, updated_at = VALUES(updated_at)";
+
+    private static final String READ_NEXT_VALUE =
+        "SELECT next_value FROM receipt_sequences WHERE sequence_name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int blockSize;
+    private final Map<Integer, Block> blocks = new HashMap<>();
+
+    @Autowired
+    public ReceiptNumberAllocator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${payments.receipts.block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("payments.receipts.block-size must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public String next() {
+        return next(1).get(0);
+    }
+
+    /**
+     * {@code count} receipt numbers of the current academic year, in increasing order.
+     */
+    public synchronized List<String> next(int count) {
+        int year = academicYearStart(LocalDate.now());
+        Block block = blocks.get(year);
+        List<String> numbers = new ArrayList<>(count);
+        while (numbers.size() < count) {
+            if (block == null || block.next == block.limit) {
+                block = reserveBlock(year);
+                blocks.put(year, block);
+            }
+            numbers.add(format(year, block.next++));
+        }
+        return numbers;
+    }
+
+    private Block reserveBlock(int year) {
+        String sequenceName = "receipts-" + year;
+        Long limit = newTransaction.execute(status -> {
+            jdbcTemplate.update(RESERVE_BLOCK, sequenceName, 1L + blockSize,
+                Timestamp.valueOf(LocalDateTime.now()), blockSize);
+            return jdbcTemplate.queryForObject(READ_NEXT_VALUE, Long.class, sequenceName);
+        });
+        return new Block(limit - blockSize, limit);
+    }
+
+    static String format(int year, long value) {
+        return String.format("RCPT-%d-%06d", year, value);
+    }
+
+    // Academic years start in August, as in StudentFeeService
+    static int academicYearStart(LocalDate date) {
+        return date.getMonthValue() >= 8 ? date.getYear() : date.getYear() - 1;
+    }
+
+    private static final class Block {
+        private long next;
+        private final long limit;
+
+        private Block(long next, long limit) {
+            this.next = next;
+            this.limit = limit;
+        }
+    }
+}
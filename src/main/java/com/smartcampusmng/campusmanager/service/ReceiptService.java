@@ -0,0 +1,215 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders payment receipts as PDF. The layout comes from {@code receipts/receipt-template.txt},
+ * which is parsed once when the service starts; fonts are created once as well. Documents are
+ * written straight to the caller's stream, and the term archive reads payments one keyset page
+ * at a time, so neither holds more than a page of receipts in memory.
+ */
+@Service
+public class ReceiptService {
+    private static final Logger log = LoggerFactory.getLogger(ReceiptService.class);
+
+    private static final String TEMPLATE_LOCATION = "receipts/receipt-template.txt";
+    private static final int ARCHIVE_PAGE_SIZE = 500;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Values a template field may refer to
+    private static final Map<String, Function<PaymentRow, Object>> VALUES = Map.ofEntries(
+        Map.entry("receiptNumber", PaymentRow::receiptNumber),
+        Map.entry("paymentDate", payment -> payment.paymentDate().format(DATE_FORMAT)),
+        Map.entry("studentUsername", PaymentRow::studentUsername),
+        Map.entry("studentName", PaymentRow::studentName),
+        Map.entry("feeName", PaymentRow::feeName),
+        Map.entry("semester", PaymentRow::semester),
+        Map.entry("academicYear", PaymentRow::academicYear),
+        Map.entry("amount", payment -> String.format("Rs. %.2f", payment.amount())),
+        Map.entry("paymentMethod", PaymentRow::paymentMethod),
+        Map.entry("transactionReference", PaymentRow::transactionReference),
+        Map.entry("recordedByName", PaymentRow::recordedByName)
+    );
+
+    private final PaymentService paymentService;
+    private final ReceiptTemplate template;
+    private final Font titleFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 16);
+    private final Font subtitleFont = FontFactory.getFont(FontFactory.HELVETICA, 10);
+    private final Font labelFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 9);
+    private final Font valueFont = FontFactory.getFont(FontFactory.HELVETICA, 9);
+    private final Font footerFont = FontFactory.getFont(FontFactory.HELVETICA_OBLIQUE, 7);
+
+    @Autowired
+    public ReceiptService(PaymentService paymentService) {
+        this.paymentService = paymentService;
+        this.template = loadTemplate();
+    }
+
+    /**
+     * Writes the receipt of one payment as a PDF. The stream is left open.
+     */
+    public void writeReceipt(PaymentRow payment, OutputStream out) {
+        Document document = new Document(PageSize.A5, 36, 36, 36, 36);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.open();
+
+        Paragraph title = new Paragraph(template.title(), titleFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        document.add(title);
+        if (template.subtitle() != null) {
+            Paragraph subtitle = new Paragraph(template.subtitle(), subtitleFont);
+            subtitle.setAlignment(Element.ALIGN_CENTER);
+            subtitle.setSpacingAfter(12);
+            document.add(subtitle);
+        }
+
+        PdfPTable table = new PdfPTable(new float[] { 2, 3 });
+        table.setWidthPercentage(100);
+        for (TemplateField field : template.fields()) {
+            table.addCell(cell(field.label(), labelFont));
+            Object value = field.value().apply(payment);
+            table.addCell(cell(value == null ? "-" : value.toString(), valueFont));
+        }
+        document.add(table);
+
+        if (template.footer() != null) {
+            Paragraph footer = new Paragraph(template.footer(), footerFont);
+            footer.setSpacingBefore(12);
+            footer.setAlignment(Element.ALIGN_CENTER);
+            document.add(footer);
+        }
+        document.close();
+    }
+
+    /**
+     * Writes a ZIP with one PDF receipt per payment of the term.
+     *
+     * @return the number of receipts written
+     */
+    public long writeTermArchive(String semester, String academicYear, OutputStream out) throws IOException {
+        long startNanos = System.nanoTime();
+        long written = 0;
+        ZipOutputStream zip = new ZipOutputStream(out);
+        long afterId = 0;
+        while (true) {
+            List<PaymentRow> page = paymentService.getPaymentsBySemesterAndYearAfter(
+                semester, academicYear, afterId, ARCHIVE_PAGE_SIZE);
+            for (PaymentRow payment : page) {
+                zip.putNextEntry(new ZipEntry(entryName(payment)));
+                writeReceipt(payment, zip);
+                zip.closeEntry();
+                written++;
+            }
+            if (page.size() < ARCHIVE_PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).paymentId();
+        }
+        zip.finish();
+        zip.flush();
+
+        log.info("Wrote {} receipts for {} {} in {} ms", written, semester, academicYear,
+            (System.nanoTime() - startNanos) / 1_000_000);
+        return written;
+    }
+
+    public String fileName(PaymentRow payment) {
+        return "receipt-" + payment.receiptNumber() + ".pdf";
+    }
+
+    private String entryName(PaymentRow payment) {
+        return payment.studentUsername() + "/" + fileName(payment);
+    }
+
+    private PdfPCell cell(String text, Font font) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorder(Rectangle.BOTTOM);
+        cell.setPadding(4);
+        return cell;
+    }
+
+    private ReceiptTemplate loadTemplate() {
+        String title = null;
+        String subtitle = null;
+        String footer = null;
+        List<TemplateField> fields = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(TEMPLATE_LOCATION).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int separator = line.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalStateException("Invalid receipt template line: " + line);
+                }
+                String key = line.substring(0, separator);
+                String value = line.substring(separator + 1);
+                switch (key) {
+                    case "title" -> title = value;
+                    case "subtitle" -> subtitle = value;
+                    case "footer" -> footer = value;
+                    case "field" -> fields.add(parseField(value));
+                    default -> throw new IllegalStateException("Unknown receipt template key: " + key);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + TEMPLATE_LOCATION, e);
+        }
+
+        if (title == null || fields.isEmpty()) {
+            throw new IllegalStateException("Receipt template needs a title and at least one field");
+        }
+        return new ReceiptTemplate(title, subtitle, footer, List.copyOf(fields));
+    }
+
+    private TemplateField parseField(String definition) {
+        int separator = definition.indexOf('|');
+        String name = separator < 0 ? "" : definition.substring(separator + 1).strip();
+        Function<PaymentRow, Object> value = VALUES.get(name);
+        if (value == null) {
+            throw new IllegalStateException("Unknown receipt template field: " + definition);
+        }
+        return new TemplateField(definition.substring(0, separator).strip(), value);
+    }
+
+    private record ReceiptTemplate(String title, String subtitle, String footer, List<TemplateField> fields) {
+    }
+
+    private record TemplateField(String label, Function<PaymentRow, Object> value) {
+    }
+}
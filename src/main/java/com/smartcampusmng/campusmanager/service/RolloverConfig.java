@@ -0,0 +1,25 @@
+package com.smartcampusmng.campusmanager.service;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class RolloverConfig {
+
+    /**
+     * Thread a term rollover started from the UI runs on, so the request that started it returns
+     * at once. Only one rollover runs at a time, which {@link StudentFeeRolloverService} enforces.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor rolloverExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("rollover-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
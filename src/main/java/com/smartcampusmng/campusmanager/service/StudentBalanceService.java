@@ -0,0 +1,276 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.StudentBalance;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.repository.StudentBalanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Maintains the {@code student_balances} ledger. Writers report what changed as
+ * {@link BalanceDelta}s inside their own transaction, and the deltas are added to the ledger
+ * rows with one upsert per student, so reading a balance is a primary key lookup.
+ * {@link #rebuild()} recomputes the ledger from {@code student_fees} and repairs any drift.
+ */
+@Service
+public class StudentBalanceService {
+    private static final Logger log = LoggerFactory.getLogger(StudentBalanceService.class);
+
+    private static final String UPSERT_COLUMNS =
+        "INSERT INTO student_balances (student_id, pending_amount, pending_count, overdue_amount, " +
+        "overdue_count, paid_amount, paid_count, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) ";
+
+    private static final String ADD_DELTA = UPSERT_COLUMNS +
+        "ON DUPLICATE KEY UPDATE pending_amount = pending_amount + VALUES(pending_amount), " +
+        "pending_count = pending_count + VALUES(pending_count), " +
+        "overdue_amount = overdue_amount + VALUES(overdue_amount), " +
+        "overdue_count = overdue_count + VALUES(overdue_count), " +
+        "paid_amount = paid_amount + VALUES(paid_amount), " +
+        "paid_count = paid_count + VALUES(paid_count), updated_at = VALUES(updated_at)";
+
+    private static final String SET_TOTALS = UPSERT_COLUMNS +
+        "ON DUPLICATE KEY UPDATE pending_amount = VALUES(pending_amount), " +
+        "pending_count = VALUES(pending_count), overdue_amount = VALUES(overdue_amount), " +
+        "overdue_count = VALUES(overdue_count), paid_amount = VALUES(paid_amount), " +
+        "paid_count = VALUES(paid_count), updated_at = VALUES(updated_at)";
+
+    private static final String LOCK_FEES =
+        "SELECT student_id, status, amount FROM student_fees WHERE student_fee_id IN (:ids) FOR UPDATE";
+
+    private static final String SELECT_STUDENT_RANGE =
+        "SELECT MIN(student_id) AS min_id, MAX(student_id) AS max_id FROM student_fees";
+
+    private static final String LOCK_LEDGER_RANGE =
+        "SELECT student_id, pending_amount, pending_count, overdue_amount, overdue_count, paid_amount, " +
+        "paid_count FROM student_balances WHERE student_id BETWEEN ? AND ? FOR UPDATE";
+
+    private static final String SUM_FEES_RANGE =
+        "SELECT student_id, status, SUM(amount) AS total, COUNT(*) AS fees FROM student_fees " +
+        "WHERE student_id BETWEEN ? AND ? GROUP BY student_id, status";
+
+    private static final double TOLERANCE = 0.005;
+
+    private final StudentBalanceRepository studentBalanceRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkSize;
+
+    @Autowired
+    public StudentBalanceService(StudentBalanceRepository studentBalanceRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${fees.balance.rebuild-chunk-size:1000}") int rebuildChunkSize) {
+        this.studentBalanceRepository = studentBalanceRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    public Optional<StudentBalance> getBalance(Long studentId) {
+        return studentBalanceRepository.findById(studentId);
+    }
+
+    /**
+     * Adds the deltas to the ledger, one upsert per student. Students are written in id order
+     * so concurrent writers always lock ledger rows in the same order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyDeltas(Collection<BalanceDelta> deltas) {
+        Map<Long, BalanceDelta> byStudent = new TreeMap<>();
+        for (BalanceDelta delta : deltas) {
+            byStudent.merge(delta.studentId(), delta, BalanceDelta::plus);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (BalanceDelta delta : byStudent.values()) {
+            if (!delta.isEmpty()) {
+                rows.add(delta.toRow(now));
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_DELTA, rows);
+        }
+    }
+
+    /**
+     * Locks the given fees and returns the ledger changes that moving them to {@code newStatus}
+     * causes. Fees already in that status contribute nothing. Call before updating the fees and
+     * apply the result afterwards, in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<BalanceDelta> statusChangeDeltas(Collection<Long> feeIds, StudentFee.PaymentStatus newStatus) {
+        if (feeIds.isEmpty()) {
+            return List.of();
+        }
+        List<BalanceDelta> deltas = new ArrayList<>();
+        namedJdbcTemplate.query(LOCK_FEES, new MapSqlParameterSource("ids", feeIds), rs -> {
+            StudentFee.PaymentStatus oldStatus = StudentFee.PaymentStatus.valueOf(rs.getString("status"));
+            if (oldStatus != newStatus) {
+                deltas.add(BalanceDelta.transition(rs.getLong("student_id"), rs.getDouble("amount"),
+                    oldStatus, newStatus));
+            }
+        });
+        return deltas;
+    }
+
+    // The ledger starts out empty on an existing database, so fill it once at startup. Counted in a
+    // read-write transaction, as count() alone is read-only and would ask the replica.
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        Long balances = transactionTemplate.execute(status -> studentBalanceRepository.count());
+        if (balances != null && balances == 0) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${fees.balance.rebuild-cron:0 30 2 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Recomputes every ledger row from {@code student_fees}, a range of students per transaction,
+     * and overwrites the rows that disagree. Ledger rows of a range are locked before the fees
+     * are summed, so a writer either committed before the sum or applies its delta after it.
+     *
+     * @return the number of students whose ledger row had to be corrected
+     */
+    public long rebuild() {
+        Map<String, Object> range = jdbcTemplate.queryForMap(SELECT_STUDENT_RANGE);
+        if (range.get("min_id") == null) {
+            return 0;
+        }
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+
+        long corrected = 0;
+        for (long from = minId; from <= maxId; from += rebuildChunkSize) {
+            long rangeStart = from;
+            long to = Math.min(from + rebuildChunkSize - 1, maxId);
+            Integer fixed = transactionTemplate.execute(status -> rebuildRange(rangeStart, to));
+            corrected += fixed == null ? 0 : fixed;
+        }
+
+        if (corrected > 0) {
+            log.warn("Balance rebuild corrected {} student ledger rows (students {}-{})", corrected, minId, maxId);
+        } else {
+            log.info("Balance rebuild found the ledger consistent (students {}-{})", minId, maxId);
+        }
+        return corrected;
+    }
+
+    private int rebuildRange(long from, long to) {
+        Map<Long, BalanceDelta> ledger = new HashMap<>();
+        jdbcTemplate.query(LOCK_LEDGER_RANGE, rs -> {
+            long studentId = rs.getLong("student_id");
+            ledger.put(studentId, new BalanceDelta(studentId,
+                rs.getDouble("pending_amount"), rs.getInt("pending_count"),
+                rs.getDouble("overdue_amount"), rs.getInt("overdue_count"),
+                rs.getDouble("paid_amount"), rs.getInt("paid_count")));
+        }, from, to);
+
+        Map<Long, BalanceDelta> expected = new TreeMap<>();
+        jdbcTemplate.query(SUM_FEES_RANGE, rs -> {
+            long studentId = rs.getLong("student_id");
+            BalanceDelta totals = BalanceDelta.of(studentId,
+                StudentFee.PaymentStatus.valueOf(rs.getString("status")), rs.getDouble("total"), rs.getInt("fees"));
+            expected.merge(studentId, totals, BalanceDelta::plus);
+        }, from, to);
+        // Ledger rows whose fees are all gone should be zero
+        for (Long studentId : ledger.keySet()) {
+            expected.putIfAbsent(studentId, BalanceDelta.zero(studentId));
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> corrections = new ArrayList<>();
+        for (BalanceDelta totals : expected.values()) {
+            BalanceDelta current = ledger.get(totals.studentId());
+            if (current == null || !current.matches(totals)) {
+                log.debug("Ledger of student {} was {}, expected {}", totals.studentId(), current, totals);
+                corrections.add(totals.toRow(now));
+            }
+        }
+        if (!corrections.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_TOTALS, corrections);
+        }
+        return corrections.size();
+    }
+
+    /**
+     * A change to one student's ledger row; also used for whole totals during a rebuild.
+     */
+    public record BalanceDelta(long studentId, double pendingAmount, int pendingCount,
+                               double overdueAmount, int overdueCount, double paidAmount, int paidCount) {
+
+        public static BalanceDelta zero(long studentId) {
+            return new BalanceDelta(studentId, 0, 0, 0, 0, 0, 0);
+        }
+
+        public static BalanceDelta of(long studentId, StudentFee.PaymentStatus status, double amount, int count) {
+            return switch (status) {
+                case PENDING -> new BalanceDelta(studentId, amount, count, 0, 0, 0, 0);
+                case OVERDUE -> new BalanceDelta(studentId, 0, 0, amount, count, 0, 0);
+                case PAID -> new BalanceDelta(studentId, 0, 0, 0, 0, amount, count);
+            };
+        }
+
+        public static BalanceDelta created(long studentId, double amount) {
+            return of(studentId, StudentFee.PaymentStatus.PENDING, amount, 1);
+        }
+
+        public static BalanceDelta transition(long studentId, double amount,
+                                              StudentFee.PaymentStatus from, StudentFee.PaymentStatus to) {
+            return of(studentId, to, amount, 1).plus(of(studentId, from, -amount, -1));
+        }
+
+        public BalanceDelta plus(BalanceDelta other) {
+            return new BalanceDelta(studentId,
+                pendingAmount + other.pendingAmount, pendingCount + other.pendingCount,
+                overdueAmount + other.overdueAmount, overdueCount + other.overdueCount,
+                paidAmount + other.paidAmount, paidCount + other.paidCount);
+        }
+
+        boolean isEmpty() {
+            return matches(zero(studentId));
+        }
+
+        boolean matches(BalanceDelta other) {
+            return pendingCount == other.pendingCount && overdueCount == other.overdueCount
+                && paidCount == other.paidCount
+                && Math.abs(pendingAmount - other.pendingAmount) < TOLERANCE
+                && Math.abs(overdueAmount - other.overdueAmount) < TOLERANCE
+                && Math.abs(paidAmount - other.paidAmount) < TOLERANCE;
+        }
+
+        Object[] toRow(Timestamp updatedAt) {
+            return new Object[] {
+                studentId, pendingAmount, pendingCount, overdueAmount, overdueCount, paidAmount, paidCount, updatedAt
+            };
+        }
+    }
+}
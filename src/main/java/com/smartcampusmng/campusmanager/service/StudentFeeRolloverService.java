@@ -0,0 +1,307 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.TermRollover;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.TermRolloverRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Creates the missing {@link StudentFee} rows of a term for every student at once, instead of
+ * waiting for each student to open the payment page. Students are walked in id order, one chunk
+ * per transaction, and the last committed student id is checkpointed in {@link TermRollover} so an
+ * interrupted run picks up where it stopped. Each chunk also writes the provisioning watermarks of
+ * its students, so their payment pages don't provision the term again.
+ */
+@Service
+public class StudentFeeRolloverService {
+    private static final Logger log = LoggerFactory.getLogger(StudentFeeRolloverService.class);
+
+    private static final String SELECT_STUDENT_IDS =
+        "SELECT user_id FROM users WHERE role = 'STUDENT' AND user_id > ? ORDER BY user_id LIMIT ?";
+
+    private static final String SELECT_EXISTING_FEES =
+        "SELECT sf.student_id, sf.fee_type_id, sf.semester FROM student_fees sf " +
+        "JOIN fee_types ft ON ft.fee_type_id = sf.fee_type_id " +
+        "WHERE sf.student_id BETWEEN ? AND ? AND (sf.academic_year = ? OR ft.frequency = 'ONE_TIME')";
+
+    // A student opening the payment page can provision a fee between the existence check and the
+    // insert; the unique key on the term turns that row into a no-op instead of failing the chunk
+    private static final String INSERT_STUDENT_FEE =
+        "INSERT INTO student_fees (student_fee_id, student_id, fee_type_id, semester, academic_year, amount, " +
+        "due_date, status, alerted, version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE student_fee_id = student_fee_id";
+
+    // Batched inserts don't report per row whether they inserted, so the rows are looked up by the ids given out
+    private static final String SELECT_INSERTED_IDS =
+        "SELECT student_fee_id FROM student_fees WHERE student_fee_id IN (:ids)";
+
+    private static final String INSERT_WATERMARK =
+        "INSERT INTO fee_provisioning (student_id, semester, academic_year, updated_at) VALUES (?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE updated_at = VALUES(updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FeeTypeRepository feeTypeRepository;
+    private final TermRolloverRepository termRolloverRepository;
+    private final StudentFeeService studentFeeService;
+    private final StudentBalanceService studentBalanceService;
+    private final EntityIdAllocator entityIdAllocator;
+    private final ThreadPoolTaskExecutor rolloverExecutor;
+    private final int chunkSize;
+    private final Counter feesProvisioned;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public StudentFeeRolloverService(JdbcTemplate jdbcTemplate,
+                                     NamedParameterJdbcTemplate namedJdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     FeeTypeRepository feeTypeRepository,
+                                     TermRolloverRepository termRolloverRepository,
+                                     StudentFeeService studentFeeService,
+                                     StudentBalanceService studentBalanceService,
+                                     EntityIdAllocator entityIdAllocator,
+                                     @Qualifier("rolloverExecutor") ThreadPoolTaskExecutor rolloverExecutor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${fees.rollover.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.feeTypeRepository = feeTypeRepository;
+        this.termRolloverRepository = termRolloverRepository;
+        this.studentFeeService = studentFeeService;
+        this.studentBalanceService = studentBalanceService;
+        this.entityIdAllocator = entityIdAllocator;
+        this.rolloverExecutor = rolloverExecutor;
+        this.chunkSize = chunkSize;
+        this.feesProvisioned = Counter.builder("fees.provisioned")
+            .description("Student fees created")
+            .tag("source", "rollover")
+            .register(meterRegistry);
+    }
+
+    public RolloverResult rolloverTerm(String semester, String academicYear) {
+        return rolloverTerm(semester, academicYear, progress -> { });
+    }
+
+    /**
+     * Provisions the term for all students. A run that was interrupted resumes from its
+     * checkpoint; a completed term is walked again from the start, which only picks up
+     * students registered since, because existing fees are never inserted twice.
+     */
+    public RolloverResult rolloverTerm(String semester, String academicYear, Consumer<Progress> listener) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A term rollover is already running");
+        }
+        try {
+            return doRollover(semester, academicYear, listener);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Starts provisioning the term on the rollover executor and returns at once. The listener is
+     * called on that executor after every chunk. Fails right away if a rollover is already running.
+     */
+    public CompletableFuture<RolloverResult> startRolloverTerm(String semester, String academicYear,
+                                                               Consumer<Progress> listener) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A term rollover is already running");
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return doRollover(semester, academicYear, listener);
+                } finally {
+                    running.set(false);
+                }
+            }, rolloverExecutor);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private RolloverResult doRollover(String semester, String academicYear, Consumer<Progress> listener) {
+        List<FeeType> feeTypes = feeTypeRepository.findAll();
+        List<FeeSlot> slots = feeSlotsFor(feeTypes, semester, academicYear);
+        // A fee type that isn't due yet may be later on, so the students' terms stay open for it
+        boolean provisionsAll = slots.size() == feeTypes.size();
+        TermRollover rollover = startOrResume(semester, academicYear);
+        long startNanos = System.nanoTime();
+        long studentsProcessed = 0;
+        long rowsCreated = 0;
+
+        log.info("Term rollover for {} {} starting after student {} with {} applicable fee types",
+            semester, academicYear, rollover.getLastStudentId(), slots.size());
+
+        while (true) {
+            TermRollover checkpoint = rollover;
+            ChunkResult chunk = transactionTemplate.execute(status -> processChunk(checkpoint, slots, provisionsAll));
+            if (chunk == null || chunk.students() == 0) {
+                break;
+            }
+            rollover = chunk.checkpoint();
+            studentsProcessed += chunk.students();
+            rowsCreated += chunk.rowsCreated();
+            feesProvisioned.increment(chunk.rowsCreated());
+            Progress progress = new Progress(studentsProcessed, rowsCreated, rollover.getLastStudentId(),
+                Duration.ofNanos(System.nanoTime() - startNanos));
+            // The chunk has committed; a view that has gone away must not stop the rollover
+            try {
+                listener.accept(progress);
+            } catch (RuntimeException e) {
+                log.debug("Could not report term rollover progress", e);
+            }
+        }
+
+        rollover.setStatus(TermRollover.RolloverStatus.COMPLETED);
+        rollover.setCompletedAt(LocalDateTime.now());
+        rollover.setUpdatedAt(LocalDateTime.now());
+        termRolloverRepository.save(rollover);
+
+        RolloverResult result = new RolloverResult(semester, academicYear, studentsProcessed, rowsCreated,
+            Duration.ofNanos(System.nanoTime() - startNanos));
+        log.info("Term rollover for {} {} finished: {} students, {} fees created in {} ms ({} rows/sec)",
+            semester, academicYear, result.studentsProcessed(), result.rowsCreated(),
+            result.elapsed().toMillis(), String.format("%.1f", result.rowsPerSecond()));
+        return result;
+    }
+
+    private ChunkResult processChunk(TermRollover rollover, List<FeeSlot> slots, boolean provisionsAll) {
+        List<Long> studentIds = jdbcTemplate.queryForList(
+            SELECT_STUDENT_IDS, Long.class, rollover.getLastStudentId(), chunkSize);
+        if (studentIds.isEmpty()) {
+            return new ChunkResult(rollover, 0, 0);
+        }
+
+        long firstId = studentIds.get(0);
+        long lastId = studentIds.get(studentIds.size() - 1);
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(SELECT_EXISTING_FEES, rs -> {
+            long studentId = rs.getLong(1);
+            long feeTypeId = rs.getLong(2);
+            existing.add(studentId + ":" + feeTypeId);
+            existing.add(studentId + ":" + feeTypeId + ":" + rs.getString(3));
+        }, firstId, lastId, rollover.getAcademicYear());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        Map<Long, StudentBalanceService.BalanceDelta> balanceChanges = new HashMap<>();
+        for (Long studentId : studentIds) {
+            for (FeeSlot slot : slots) {
+                String key = slot.feeType().getFrequency() == FeeType.Frequency.ONE_TIME
+                    ? studentId + ":" + slot.feeType().getFeeTypeId()
+                    : studentId + ":" + slot.feeType().getFeeTypeId() + ":" + slot.semester();
+                if (existing.contains(key)) {
+                    continue;
+                }
+                long feeId = entityIdAllocator.nextId(StudentFee.class);
+                rows.add(new Object[] {
+                    feeId, studentId, slot.feeType().getFeeTypeId(),
+                    slot.semester(), rollover.getAcademicYear(), slot.feeType().getAmount(), Date.valueOf(slot.dueDate()),
+                    StudentFee.PaymentStatus.PENDING.name(), false, now, now
+                });
+                balanceChanges.put(feeId, StudentBalanceService.BalanceDelta.created(studentId, slot.feeType().getAmount()));
+            }
+        }
+        int created = 0;
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_STUDENT_FEE, rows);
+            List<Long> inserted = namedJdbcTemplate.queryForList(
+                SELECT_INSERTED_IDS, new MapSqlParameterSource("ids", balanceChanges.keySet()), Long.class);
+            studentBalanceService.applyDeltas(inserted.stream().map(balanceChanges::get).toList());
+            created = inserted.size();
+        }
+        if (provisionsAll) {
+            jdbcTemplate.batchUpdate(INSERT_WATERMARK, studentIds.stream()
+                .map(studentId -> new Object[] {studentId, rollover.getSemester(), rollover.getAcademicYear(), now})
+                .toList());
+        }
+
+        rollover.setLastStudentId(lastId);
+        rollover.setStudentsProcessed(rollover.getStudentsProcessed() + studentIds.size());
+        rollover.setRowsCreated(rollover.getRowsCreated() + created);
+        rollover.setUpdatedAt(LocalDateTime.now());
+        return new ChunkResult(termRolloverRepository.save(rollover), studentIds.size(), created);
+    }
+
+    private TermRollover startOrResume(String semester, String academicYear) {
+        TermRollover rollover = termRolloverRepository.findBySemesterAndAcademicYear(semester, academicYear)
+            .orElseGet(() -> {
+                TermRollover created = new TermRollover();
+                created.setSemester(semester);
+                created.setAcademicYear(academicYear);
+                return created;
+            });
+
+        if (rollover.getRolloverId() == null || rollover.getStatus() == TermRollover.RolloverStatus.COMPLETED) {
+            rollover.setLastStudentId(0L);
+            rollover.setStudentsProcessed(0);
+            rollover.setRowsCreated(0);
+            rollover.setStartedAt(LocalDateTime.now());
+            rollover.setCompletedAt(null);
+        }
+        rollover.setStatus(TermRollover.RolloverStatus.RUNNING);
+        rollover.setUpdatedAt(LocalDateTime.now());
+        return termRolloverRepository.save(rollover);
+    }
+
+    private List<FeeSlot> feeSlotsFor(List<FeeType> feeTypes, String semester, String academicYear) {
+        List<FeeSlot> slots = new ArrayList<>();
+        for (FeeType feeType : feeTypes) {
+            if (studentFeeService.isDueForTerm(feeType, semester, academicYear)) {
+                String feeSemester = studentFeeService.semesterFor(feeType, semester);
+                slots.add(new FeeSlot(feeType, feeSemester, studentFeeService.dueDateFor(feeType, semester)));
+            }
+        }
+        return slots;
+    }
+
+    private record FeeSlot(FeeType feeType, String semester, LocalDate dueDate) {
+    }
+
+    private record ChunkResult(TermRollover checkpoint, int students, int rowsCreated) {
+    }
+
+    public record Progress(long studentsProcessed, long rowsCreated, long lastStudentId, Duration elapsed) {
+    }
+
+    public record RolloverResult(String semester, String academicYear, long studentsProcessed,
+                                 long rowsCreated, Duration elapsed) {
+        public double rowsPerSecond() {
+            long millis = Math.max(elapsed.toMillis(), 1);
+            return rowsCreated * 1000.0 / millis;
+        }
+    }
+}
@@ -1,31 +1,82 @@
 package com.smartcampusmng.campusmanager.service;
 
+import com.smartcampusmng.campusmanager.dto.PendingFeeRow;
+import com.smartcampusmng.campusmanager.dto.TermFee;
+import com.smartcampusmng.campusmanager.entity.FeeProvisioning;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.repository.FeeProvisioningRepository;
 import com.smartcampusmng.campusmanager.repository.StudentFeeRepository;
 import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("campus.service")
 public class StudentFeeService {
+    /**
+     * Fees still to be paid. The overdue sweep moves PENDING fees past their due date to OVERDUE,
+     * and both are listed, alerted and counted alike.
+     */
+    public static final Set<StudentFee.PaymentStatus> UNPAID =
+        EnumSet.of(StudentFee.PaymentStatus.PENDING, StudentFee.PaymentStatus.OVERDUE);
+
+    private static final String MARK_PAID_IF_UNCHANGED =
+        "UPDATE student_fees SET status = ?, version = version + 1, updated_at = ? " +
+        "WHERE student_fee_id = ? AND version = ? AND status <> ?";
+
     private final StudentFeeRepository studentFeeRepository;
     private final FeeTypeRepository feeTypeRepository;
+    private final FeeProvisioningRepository feeProvisioningRepository;
+    private final StudentBalanceService studentBalanceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter feesProvisioned;
 
     @Autowired
     public StudentFeeService(StudentFeeRepository studentFeeRepository, 
-                           FeeTypeRepository feeTypeRepository) {
+                           FeeTypeRepository feeTypeRepository,
+                           FeeProvisioningRepository feeProvisioningRepository,
+                           StudentBalanceService studentBalanceService,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry) {
         this.studentFeeRepository = studentFeeRepository;
         this.feeTypeRepository = feeTypeRepository;
+        this.feeProvisioningRepository = feeProvisioningRepository;
+        this.studentBalanceService = studentBalanceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.feesProvisioned = Counter.builder("fees.provisioned")
+            .description("Student fees created")
+            .tag("source", "on-demand")
+            .register(meterRegistry);
     }
 
+    @Transactional(readOnly = true)
     public List<StudentFee> getPendingFeesForStudent(User student) {
         return studentFeeRepository.findByStudentAndStatus(
             student, StudentFee.PaymentStatus.PENDING);
@@ -33,99 +84,141 @@ public class StudentFeeService {
 
     public List<StudentFee> getFeesForStudentAndSemester(
         User student, String semester, String academicYear) {
-        // First, ensure all required fees exist
-        ensureStudentFeesExist(student, semester, academicYear);
-        
-        // Then return the fees for the semester
-        return studentFeeRepository.findByStudentAndSemesterAndAcademicYear(
-            student, semester, academicYear);
+        // A provisioned term is served by a single query, outside any transaction and so on the
+        // primary: fees are paid as loaded here, and a copy from a lagging replica would conflict
+        List<TermFee> termFees = studentFeeRepository.findTermFees(student, semester, academicYear);
+        if (!termFees.isEmpty() && termFees.get(0).provisioned()) {
+            return termFees.stream().map(TermFee::fee).toList();
+        }
+
+        // Otherwise ensure all required fees exist, and read them back from the primary
+        try {
+            return transactionTemplate.execute(status -> {
+                ensureStudentFeesExist(student, semester, academicYear);
+                return studentFeeRepository.findByStudentAndSemesterAndAcademicYear(student, semester, academicYear);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request provisioned the same term first
+            return transactionTemplate.execute(status ->
+                studentFeeRepository.findByStudentAndSemesterAndAcademicYear(student, semester, academicYear));
+        }
     }
 
     @Transactional
     public void ensureStudentFeesExist(User student, String semester, String academicYear) {
+        // The term may be provisioned without fees of its own, or the replica may not have caught up yet
+        if (feeProvisioningRepository.existsByStudentIdAndSemesterAndAcademicYear(
+            student.getUserId(), semester, academicYear)) {
+            return;
+        }
+
         List<FeeType> allFeeTypes = feeTypeRepository.findAll();
-        LocalDate currentDate = LocalDate.now();
-        
+        List<StudentFee> newFees = new ArrayList<>();
+        boolean heldBack = false;
+
         for (FeeType feeType : allFeeTypes) {
             // Check if this fee type should be created for the current semester/year
-            boolean shouldCreateFee = false;
-            String feeSemester = semester;
-            String feeAcademicYear = academicYear;
-
-            switch (feeType.getFrequency()) {
-                case SEMESTER:
-                    // For semester fees, check if we're in the correct semester
-                    if (semester.contains("First") && 
-                        (currentDate.getMonth() == Month.AUGUST || 
-                         currentDate.getMonth() == Month.SEPTEMBER ||
-                         currentDate.getMonth() == Month.OCTOBER ||
-                         currentDate.getMonth() == Month.NOVEMBER ||
-                         currentDate.getMonth() == Month.DECEMBER)) {
-                        shouldCreateFee = true;
-                    } else if (semester.contains("Second") && 
-                        (currentDate.getMonth() == Month.JANUARY || 
-                         currentDate.getMonth() == Month.FEBRUARY ||
-                         currentDate.getMonth() == Month.MARCH ||
-                         currentDate.getMonth() == Month.APRIL ||
-                         currentDate.getMonth() == Month.MAY)) {
-                        shouldCreateFee = true;
-                    }
-                    break;
-                case YEARLY:
-                    // For yearly fees, check if we're in the correct academic year
-                    if (academicYear.equals(getCurrentAcademicYear())) {
-                        shouldCreateFee = true;
-                        feeSemester = null; // Yearly fees don't have a semester
-                    }
-                    break;
-                case ONE_TIME:
-                    // For one-time fees, check if they haven't been created yet
-                    if (!studentFeeRepository.existsByStudentAndFeeType(student, feeType)) {
-                        shouldCreateFee = true;
-                        feeSemester = null; // One-time fees don't have a semester
-                    }
-                    break;
-                case MONTHLY:
-                    // For monthly fees, create for current month
-                    shouldCreateFee = true;
-                    feeSemester = semester;
-                    break;
+            if (!isDueForTerm(feeType, semester, academicYear)) {
+                heldBack = true;
+                continue;
+            }
+            // For one-time fees, check if they haven't been created yet
+            if (feeType.getFrequency() == FeeType.Frequency.ONE_TIME
+                && studentFeeRepository.existsByStudentAndFeeType(student, feeType)) {
+                continue;
             }
 
-            if (shouldCreateFee && !studentFeeRepository.existsByStudentAndFeeTypeAndSemesterAndAcademicYear(
-                student, feeType, feeSemester, feeAcademicYear)) {
-                createStudentFee(student, feeType, feeSemester, feeAcademicYear);
+            String feeSemester = semesterFor(feeType, semester);
+            if (!studentFeeRepository.existsByStudentAndFeeTypeAndSemesterAndAcademicYear(
+                student, feeType, feeSemester, academicYear)) {
+                newFees.add(newStudentFee(student, feeType, feeSemester, academicYear));
             }
         }
 
-        // Update status of existing fees to OVERDUE if they cross the due dates
-        List<StudentFee> existingFees = studentFeeRepository.findByStudentAndStatus(
-            student, StudentFee.PaymentStatus.PENDING);
-        
-        for (StudentFee fee : existingFees) {
-            if (fee.getFeeType().getFrequency() == FeeType.Frequency.SEMESTER) {
-                LocalDate dueDate = fee.getDueDate();
-                if (dueDate != null) {
-                    if (fee.getSemester().contains("First") && currentDate.isAfter(LocalDate.of(currentDate.getYear(), Month.FEBRUARY, 1))) {
-                        fee.setStatus(StudentFee.PaymentStatus.OVERDUE);
-                        studentFeeRepository.save(fee);
-                    } else if (fee.getSemester().contains("Second") && currentDate.isAfter(LocalDate.of(currentDate.getYear(), Month.AUGUST, 1))) {
-                        fee.setStatus(StudentFee.PaymentStatus.OVERDUE);
-                        studentFeeRepository.save(fee);
-                    }
-                }
-            }
+        saveNewFees(newFees);
+        // A fee type that isn't due yet may be later on, so its term has to be checked again
+        if (!heldBack) {
+            markProvisioned(student.getUserId(), semester, academicYear);
         }
     }
 
-    private void createStudentFee(User student, FeeType feeType, String semester, String academicYear) {
+    /**
+     * Records that every fee of the term has been created for the student. The watermark stays
+     * until a fee type is added or changes frequency, see {@link FeeTypeService#saveFeeType}.
+     */
+    void markProvisioned(Long studentId, String semester, String academicYear) {
+        FeeProvisioning watermark = new FeeProvisioning();
+        watermark.setStudentId(studentId);
+        watermark.setSemester(semester);
+        watermark.setAcademicYear(academicYear);
+        watermark.setUpdatedAt(LocalDateTime.now());
+        feeProvisioningRepository.save(watermark);
+    }
+
+    private StudentFee newStudentFee(User student, FeeType feeType, String semester, String academicYear) {
         StudentFee studentFee = new StudentFee();
         studentFee.setStudent(student);
         studentFee.setFeeType(feeType);
         studentFee.setSemester(semester);
         studentFee.setAcademicYear(academicYear);
         studentFee.setAmount(feeType.getAmount());
-        
+        studentFee.setDueDate(dueDateFor(feeType, semester));
+        studentFee.setStatus(StudentFee.PaymentStatus.PENDING);
+        studentFee.setCreatedAt(LocalDateTime.now());
+        return studentFee;
+    }
+
+    // Saved together after the existence checks, which would otherwise flush each insert on its own
+    private void saveNewFees(List<StudentFee> newFees) {
+        if (newFees.isEmpty()) {
+            return;
+        }
+        studentFeeRepository.saveAllAndFlush(newFees);
+        studentBalanceService.applyDeltas(newFees.stream()
+            .map(fee -> StudentBalanceService.BalanceDelta.created(fee.getStudent().getUserId(), fee.getAmount()))
+            .toList());
+        feesProvisioned.increment(newFees.size());
+    }
+
+    /**
+     * Whether a fee of this type is charged for the given term. One-time fees always
+     * qualify here; callers still have to check the student hasn't been charged already.
+     */
+    boolean isDueForTerm(FeeType feeType, String semester, String academicYear) {
+        Month currentMonth = LocalDate.now().getMonth();
+        switch (feeType.getFrequency()) {
+            case SEMESTER:
+                // For semester fees, check if we're in the correct semester
+                if (semester.contains("First")) {
+                    return currentMonth.getValue() >= Month.AUGUST.getValue();
+                } else if (semester.contains("Second")) {
+                    return currentMonth.getValue() <= Month.MAY.getValue();
+                }
+                return false;
+            case YEARLY:
+                // For yearly fees, check if we're in the correct academic year
+                return academicYear.equals(getCurrentAcademicYear());
+            case ONE_TIME:
+            case MONTHLY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The semester a fee of this type is recorded under. Yearly and one-time fees
+     * don't have a semester.
+     */
+    String semesterFor(FeeType feeType, String semester) {
+        if (feeType.getFrequency() == FeeType.Frequency.YEARLY
+            || feeType.getFrequency() == FeeType.Frequency.ONE_TIME) {
+            return null;
+        }
+        return semester;
+    }
+
+    LocalDate dueDateFor(FeeType feeType, String semester) {
         // Set due date based on fee type
         LocalDate dueDate = LocalDate.now();
         switch (feeType.getFrequency()) {
@@ -146,10 +239,7 @@ public class StudentFeeService {
                 dueDate = LocalDate.now().plusDays(15);
                 break;
         }
-        studentFee.setDueDate(dueDate);
-        studentFee.setStatus(StudentFee.PaymentStatus.PENDING);
-
-        studentFeeRepository.save(studentFee);
+        return dueDate;
     }
 
     private String getCurrentAcademicYear() {
@@ -164,8 +254,72 @@ public class StudentFeeService {
 
     @Transactional
     public StudentFee updateFeeStatus(StudentFee fee, StudentFee.PaymentStatus status) {
+        List<StudentBalanceService.BalanceDelta> balanceChanges =
+            studentBalanceService.statusChangeDeltas(List.of(fee.getStudentFeeId()), status);
         fee.setStatus(status);
-        return studentFeeRepository.save(fee);
+        StudentFee saved = studentFeeRepository.save(fee);
+        studentBalanceService.applyDeltas(balanceChanges);
+        return saved;
+    }
+
+    /**
+     * Sets the status of many fees with one UPDATE statement. The given ids are not
+     * reloaded, so callers holding the entities should update them as well.
+     */
+    @Transactional
+    public int updateFeeStatuses(Collection<Long> feeIds, StudentFee.PaymentStatus status) {
+        List<StudentBalanceService.BalanceDelta> balanceChanges =
+            studentBalanceService.statusChangeDeltas(feeIds, status);
+        int updated = studentFeeRepository.updateStatusByIds(feeIds, status, LocalDateTime.now());
+        studentBalanceService.applyDeltas(balanceChanges);
+        return updated;
+    }
+
+    /**
+     * Marks the fees PAID provided none of them changed since they were loaded. Nothing is locked
+     * up front: the fees are updated with one JDBC batch, each UPDATE carrying the version the
+     * caller saw, and a fee that was paid or updated in between fails the call so the caller's
+     * transaction rolls back. The entities are left as they are until that transaction has
+     * committed. Fees are updated in id order, so two checkouts of overlapping fees lock them in
+     * the same order rather than deadlocking.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void markFeesPaid(Collection<StudentFee> fees) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String paid = StudentFee.PaymentStatus.PAID.name();
+        List<StudentFee> toMark = new ArrayList<>(fees);
+        toMark.sort(Comparator.comparing(StudentFee::getStudentFeeId));
+        List<Object[]> rows = new ArrayList<>();
+        List<StudentBalanceService.BalanceDelta> balanceChanges = new ArrayList<>();
+        for (StudentFee fee : toMark) {
+            rows.add(new Object[] { paid, now, fee.getStudentFeeId(), fee.getVersion(), paid });
+            balanceChanges.add(StudentBalanceService.BalanceDelta.transition(fee.getStudent().getUserId(),
+                fee.getAmount(), fee.getStatus(), StudentFee.PaymentStatus.PAID));
+        }
+        int[] updated = jdbcTemplate.batchUpdate(MARK_PAID_IF_UNCHANGED, rows);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new OptimisticLockingFailureException(
+                    "Fee " + toMark.get(i).getStudentFeeId() + " was changed since it was loaded");
+            }
+        }
+        studentBalanceService.applyDeltas(balanceChanges);
+    }
+
+    /**
+     * Flags the given fees as alerted with one UPDATE, skipping any that have been paid.
+     */
+    @Transactional
+    public int markFeesAlerted(Collection<Long> feeIds) {
+        return studentFeeRepository.markAlertedByIds(feeIds, UNPAID, LocalDateTime.now());
+    }
+
+    /**
+     * Loads fees together with their student and fee type in one query. Not read-only: payments
+     * reload fees through it after a conflict and need the committed state, not the replica's.
+     */
+    public List<StudentFee> getFeesByIds(Collection<Long> feeIds) {
+        return studentFeeRepository.findByStudentFeeIdIn(feeIds);
     }
 
     public StudentFee save(StudentFee fee) {
@@ -178,7 +332,8 @@ public class StudentFeeService {
         LocalDate currentDate = LocalDate.now();
         String currentAcademicYear = getCurrentAcademicYear();
         String currentSemester = getCurrentSemester();
-        
+        List<StudentFee> newFees = new ArrayList<>();
+
         for (FeeType feeType : allFeeTypes) {
             String feeSemester = null;
             String feeAcademicYear = null;
@@ -208,9 +363,10 @@ public class StudentFeeService {
 
             if (shouldCreateFee && !studentFeeRepository.existsByStudentAndFeeTypeAndSemesterAndAcademicYear(
                 student, feeType, feeSemester, feeAcademicYear)) {
-                createStudentFee(student, feeType, feeSemester, feeAcademicYear);
+                newFees.add(newStudentFee(student, feeType, feeSemester, feeAcademicYear));
             }
         }
+        saveNewFees(newFees);
     }
 
     private String getCurrentSemester() {
@@ -222,12 +378,28 @@ public class StudentFeeService {
         }
     }
 
+    @Transactional(readOnly = true)
     public List<StudentFee> getAllPendingFees() {
         return studentFeeRepository.findByStatus(StudentFee.PaymentStatus.PENDING);
     }
 
+    @Transactional(readOnly = true)
     public List<StudentFee> getPendingFeesBySemesterAndYear(String semester, String academicYear) {
-        return studentFeeRepository.findBySemesterAndAcademicYearAndStatus(
-            semester, academicYear, StudentFee.PaymentStatus.PENDING);
+        return studentFeeRepository.findBySemesterAndAcademicYearAndStatusIn(semester, academicYear, UNPAID);
+    }
+
+    /**
+     * One page of the term's pending and overdue fees that no alert has been sent for yet,
+     * filtered and sorted by the database.
+     */
+    @Transactional(readOnly = true)
+    public List<PendingFeeRow> getUnalertedPendingFees(String semester, String academicYear, Pageable pageable) {
+        return studentFeeRepository.findUnalertedRows(semester, academicYear, UNPAID, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public long countUnalertedPendingFees(String semester, String academicYear) {
+        return studentFeeRepository.countBySemesterAndAcademicYearAndStatusInAndAlertedFalse(
+            semester, academicYear, UNPAID);
     }
-} 
\ No newline at end of file
+}
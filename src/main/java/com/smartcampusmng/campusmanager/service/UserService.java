@@ -2,6 +2,8 @@ package com.smartcampusmng.campusmanager.service;
 
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.repository.UserRepository;
+import com.smartcampusmng.campusmanager.security.UserSnapshot;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
@@ -9,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Service
+@Timed("campus.service")
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
@@ -49,13 +52,19 @@ public class UserService {
     }
 
     public boolean authenticate(String username, String password, User.UserRole role) {
-        try {
-            User user = findByUsername(username);
-            return passwordEncoder.matches(password, user.getPassword()) && 
-                   user.getRole() == role;
-        } catch (Exception e) {
-            return false;
+        return login(username, password, role) != null;
+    }
+
+    /**
+     * Checks the credentials and returns a snapshot of the user to keep in the session,
+     * or {@code null} if they don't match.
+     */
+    public UserSnapshot login(String username, String password, User.UserRole role) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null || !passwordEncoder.matches(password, user.getPassword()) || user.getRole() != role) {
+            return null;
         }
+        return UserSnapshot.from(user);
     }
 
     public User updateUserProfile(String username, User updatedUser) {
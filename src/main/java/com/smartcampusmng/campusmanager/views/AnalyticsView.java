@@ -0,0 +1,166 @@
+package com.smartcampusmng.campusmanager.views;
+
+import com.smartcampusmng.campusmanager.dto.BalanceTotals;
+import com.smartcampusmng.campusmanager.dto.CollectionTotal;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.CollectionAnalyticsService;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.datepicker.DatePicker;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.H1;
+import com.vaadin.flow.component.html.H3;
+import com.vaadin.flow.component.html.Paragraph;
+import com.vaadin.flow.component.notification.Notification;
+import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
+import com.vaadin.flow.router.PageTitle;
+import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.auth.AnonymousAllowed;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Route("analytics")
+@PageTitle("Collections Analytics | Campus Manager")
+@AnonymousAllowed
+public class AnalyticsView extends VerticalLayout {
+
+    private final CollectionAnalyticsService analyticsService;
+    private DatePicker fromDate;
+    private DatePicker toDate;
+    private Paragraph outstandingText;
+    private Paragraph collectedText;
+    private TotalsGrid feeTypeGrid;
+    private TotalsGrid methodGrid;
+    private TotalsGrid termGrid;
+    private TotalsGrid dailyGrid;
+
+    public AnalyticsView(CollectionAnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+
+        setSizeFull();
+        setAlignItems(Alignment.CENTER);
+
+        initializeView();
+    }
+
+    private void initializeView() {
+        // Get current user from session
+        String currentUsername = (String) VaadinSession.getCurrent().getAttribute("username");
+        User.UserRole currentRole = (User.UserRole) VaadinSession.getCurrent().getAttribute("role");
+
+        if (currentUsername == null || currentRole == null) {
+            Notification.show("Please log in to access this feature");
+            UI.getCurrent().navigate("login");
+            return;
+        }
+
+        // Only allow accounts users to access this view
+        if (currentRole != User.UserRole.ACCOUNTS) {
+            Notification.show("This feature is only available for accounts users");
+            UI.getCurrent().navigate("dashboard");
+            return;
+        }
+
+        Button backButton = new Button("Back to Dashboard", e -> UI.getCurrent().navigate("dashboard"));
+        HorizontalLayout header = new HorizontalLayout(backButton);
+        header.setWidthFull();
+
+        // Date range, defaulting to the last twelve months
+        fromDate = new DatePicker("From", LocalDate.now().minusYears(1));
+        toDate = new DatePicker("To", LocalDate.now());
+        fromDate.addValueChangeListener(e -> refresh());
+        toDate.addValueChangeListener(e -> refresh());
+
+        Button rebuildButton = new Button("Rebuild Rollups", e -> rebuildRollups());
+
+        HorizontalLayout filterLayout = new HorizontalLayout(fromDate, toDate, rebuildButton);
+        filterLayout.setAlignItems(Alignment.BASELINE);
+
+        outstandingText = new Paragraph();
+        collectedText = new Paragraph();
+
+        feeTypeGrid = new TotalsGrid("Fee Type");
+        methodGrid = new TotalsGrid("Payment Method");
+        termGrid = new TotalsGrid("Term");
+        dailyGrid = new TotalsGrid("Date");
+
+        VerticalLayout content = new VerticalLayout(
+            new H1("Collections Analytics"),
+            filterLayout,
+            outstandingText,
+            collectedText,
+            new H3("Collected per Fee Type"), feeTypeGrid,
+            new H3("Collected per Payment Method"), methodGrid,
+            new H3("Collected per Term"), termGrid,
+            new H3("Collected per Day"), dailyGrid
+        );
+        content.setWidth("80%");
+
+        add(header, content);
+        refresh();
+    }
+
+    private void refresh() {
+        LocalDate from = fromDate.getValue();
+        LocalDate to = toDate.getValue();
+        if (from == null || to == null) {
+            return;
+        }
+
+        try {
+            BalanceTotals balances = analyticsService.getBalanceTotals();
+            outstandingText.setText(String.format("Outstanding: ₹%.2f (overdue ₹%.2f)",
+                balances.outstandingAmount(), balances.overdueAmount() == null ? 0 : balances.overdueAmount()));
+
+            List<CollectionTotal> byFeeType = analyticsService.getCollectedByFeeType(from, to);
+            double collected = byFeeType.stream().mapToDouble(CollectionTotal::totalAmount).sum();
+            collectedText.setText(String.format("Collected from %s to %s: ₹%.2f", from, to, collected));
+
+            feeTypeGrid.setTotals(byFeeType);
+            methodGrid.setTotals(analyticsService.getCollectedByPaymentMethod(from, to));
+            termGrid.setTotals(analyticsService.getCollectedByTerm(from, to));
+            dailyGrid.setTotals(analyticsService.getCollectedByDay(from, to));
+        } catch (Exception e) {
+            Notification.show("Error loading analytics: " + e.getMessage());
+        }
+    }
+
+    private void rebuildRollups() {
+        try {
+            long processed = analyticsService.rebuild();
+            Notification.show("Rollups rebuilt over " + processed + " payments");
+            refresh();
+        } catch (Exception e) {
+            Notification.show("Error rebuilding rollups: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Totals with a bar per row, scaled to the largest row.
+     */
+    private static class TotalsGrid extends Grid<CollectionTotal> {
+        private double maxAmount = 1;
+
+        TotalsGrid(String labelHeader) {
+            setWidthFull();
+            setAllRowsVisible(true);
+            addColumn(CollectionTotal::label).setHeader(labelHeader);
+            addColumn(CollectionTotal::paymentCount).setHeader("Payments");
+            addColumn(total -> String.format("₹%.2f", total.totalAmount())).setHeader("Collected");
+            addComponentColumn(total -> {
+                ProgressBar bar = new ProgressBar(0, maxAmount, total.totalAmount());
+                bar.setWidth("200px");
+                return bar;
+            });
+        }
+
+        void setTotals(List<CollectionTotal> totals) {
+            maxAmount = Math.max(1, totals.stream().mapToDouble(CollectionTotal::totalAmount).max().orElse(0));
+            setItems(totals);
+        }
+    }
+}
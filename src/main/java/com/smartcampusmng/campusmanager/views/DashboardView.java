@@ -1,7 +1,13 @@
 package com.smartcampusmng.campusmanager.views;
 
+import com.smartcampusmng.campusmanager.entity.StudentBalance;
 import com.smartcampusmng.campusmanager.entity.User;
-import com.smartcampusmng.campusmanager.service.UserService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
+import com.smartcampusmng.campusmanager.service.AlertInbox;
+import com.smartcampusmng.campusmanager.service.FeeAlertService;
+import com.smartcampusmng.campusmanager.service.StudentBalanceService;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.html.H1;
@@ -9,6 +15,7 @@ import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Paragraph;
 import com.vaadin.flow.component.html.Div;
+import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
@@ -16,6 +23,7 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
+import com.vaadin.flow.shared.Registration;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @Route("dashboard")
@@ -23,7 +31,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 @AnonymousAllowed
 public class DashboardView extends VerticalLayout {
 
-    public DashboardView(UserService userService) {
+    private final AlertInbox alertInbox;
+    private Long studentId;
+    private Span unreadBadge;
+    private int unreadAlerts;
+    private Registration inboxRegistration;
+
+    public DashboardView(StudentBalanceService studentBalanceService, FeeAlertService feeAlertService,
+                         AlertInbox alertInbox) {
+        this.alertInbox = alertInbox;
         setSizeFull();
         setAlignItems(Alignment.CENTER);
         setJustifyContentMode(JustifyContentMode.CENTER);
@@ -39,7 +55,7 @@ public class DashboardView extends VerticalLayout {
         }
 
         try {
-            User currentUser = userService.findByUsername(currentUsername);
+            User currentUser = CurrentUser.get();
             if (currentUser == null) {
                 Notification.show("User not found. Please log in again.");
                 UI.getCurrent().navigate("login");
@@ -57,6 +73,7 @@ public class DashboardView extends VerticalLayout {
             Button logoutButton = new Button("Logout", e -> {
                 SecurityContextHolder.clearContext();
                 VaadinSession.getCurrent().setAttribute("username", null);
+                CurrentUser.clear();
                 VaadinSession.getCurrent().setAttribute("role", null);
                 UI.getCurrent().navigate("login");
             });
@@ -120,6 +137,13 @@ public class DashboardView extends VerticalLayout {
                 H2 feeTitle = new H2("Fee Management");
                 feeTitle.getStyle().set("margin-top", "0");
 
+                // Outstanding balance straight from the ledger
+                StudentBalance balance = studentBalanceService.getBalance(currentUser.getUserId()).orElse(null);
+                Paragraph balanceText = new Paragraph(balance == null
+                    ? "Outstanding balance: ₹0.00"
+                    : String.format("Outstanding balance: ₹%.2f (overdue ₹%.2f)",
+                        balance.getOutstandingAmount(), balance.getOverdueAmount()));
+
                 Button viewPaymentsButton = new Button("View Payment History", e -> {
                     try {
                         UI.getCurrent().navigate("payment-history");
@@ -138,7 +162,7 @@ public class DashboardView extends VerticalLayout {
                 });
                 makePaymentButton.setWidthFull();
 
-                feeCard.add(feeTitle, viewPaymentsButton, makePaymentButton);
+                feeCard.add(feeTitle, balanceText, viewPaymentsButton, makePaymentButton);
                 featureCards.add(feeCard);
 
                 // Add fee alerts card
@@ -153,6 +177,16 @@ public class DashboardView extends VerticalLayout {
                 H2 feeAlertsTitle = new H2("Fee Alerts");
                 feeAlertsTitle.getStyle().set("margin-top", "0");
 
+                // Unread count from the counter row, plus alerts pushed while the dashboard is open
+                studentId = currentUser.getUserId();
+                unreadAlerts = feeAlertService.getUnreadCount(studentId);
+                unreadBadge = new Span();
+                unreadBadge.getStyle().set("background-color", "#d32f2f");
+                unreadBadge.getStyle().set("color", "white");
+                unreadBadge.getStyle().set("border-radius", "10px");
+                unreadBadge.getStyle().set("padding", "2px 8px");
+                showUnreadAlerts();
+
                 Button viewAlertsButton = new Button("View Alerts", e -> {
                     try {
                         UI.getCurrent().navigate("student-alerts");
@@ -162,7 +196,7 @@ public class DashboardView extends VerticalLayout {
                 });
                 viewAlertsButton.setWidthFull();
 
-                feeAlertsCard.add(feeAlertsTitle, viewAlertsButton);
+                feeAlertsCard.add(feeAlertsTitle, unreadBadge, viewAlertsButton);
                 featureCards.add(feeAlertsCard);
             }
 
@@ -214,6 +248,30 @@ public class DashboardView extends VerticalLayout {
 
                 receiptCard.add(receiptTitle, generateReceiptButton);
                 featureCards.add(receiptCard);
+
+                // Add collections analytics card
+                VerticalLayout analyticsCard = new VerticalLayout();
+                analyticsCard.setWidth("300px");
+                analyticsCard.setPadding(true);
+                analyticsCard.getStyle().set("border", "1px solid #ccc");
+                analyticsCard.getStyle().set("border-radius", "5px");
+                analyticsCard.getStyle().set("background-color", "#f5f5f5");
+                analyticsCard.getStyle().set("cursor", "pointer");
+
+                H2 analyticsTitle = new H2("Collections Analytics");
+                analyticsTitle.getStyle().set("margin-top", "0");
+
+                Button analyticsButton = new Button("View Analytics", e -> {
+                    try {
+                        UI.getCurrent().navigate("analytics");
+                    } catch (Exception ex) {
+                        Notification.show("Error navigating to analytics: " + ex.getMessage());
+                    }
+                });
+                analyticsButton.setWidthFull();
+
+                analyticsCard.add(analyticsTitle, analyticsButton);
+                featureCards.add(analyticsCard);
             }
 
             // Add more feature cards here as needed
@@ -226,4 +284,32 @@ public class DashboardView extends VerticalLayout {
             UI.getCurrent().navigate("login");
         }
     }
+
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        if (unreadBadge == null) {
+            return;
+        }
+        UI ui = attachEvent.getUI();
+        Runnable unsubscribe = alertInbox.subscribe(studentId, alert -> ui.access(() -> {
+            unreadAlerts++;
+            showUnreadAlerts();
+        }));
+        inboxRegistration = unsubscribe::run;
+    }
+
+    private void showUnreadAlerts() {
+        unreadBadge.setText(unreadAlerts == 1 ? "1 unread alert" : unreadAlerts + " unread alerts");
+        unreadBadge.setVisible(unreadAlerts > 0);
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        if (inboxRegistration != null) {
+            inboxRegistration.remove();
+            inboxRegistration = null;
+        }
+        super.onDetach(detachEvent);
+    }
 } 
\ No newline at end of file
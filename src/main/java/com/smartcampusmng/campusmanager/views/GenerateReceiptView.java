@@ -1,24 +1,31 @@
 package com.smartcampusmng.campusmanager.views;
 
-import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
 import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.PaymentExportService;
 import com.smartcampusmng.campusmanager.service.PaymentService;
-import com.smartcampusmng.campusmanager.service.UserService;
+import com.smartcampusmng.campusmanager.service.ReceiptService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.dialog.Dialog;
 import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.html.H2;
 import com.vaadin.flow.component.html.Paragraph;
 import com.vaadin.flow.component.notification.Notification;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.data.value.ValueChangeMode;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.server.StreamResource;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
@@ -29,16 +36,26 @@ import java.util.List;
 @AnonymousAllowed
 public class GenerateReceiptView extends VerticalLayout {
 
-    private final UserService userService;
     private final PaymentService paymentService;
-    private Grid<Payment> paymentGrid;
+    private final ReceiptService receiptService;
+    private final PaymentExportService paymentExportService;
+    private Grid<PaymentRow> paymentGrid;
     private ComboBox<String> semesterComboBox;
     private ComboBox<String> academicYearComboBox;
+    private TextField searchField;
+    private Anchor downloadAllLink;
+    private Button downloadAllButton;
+    private Anchor exportCsvLink;
+    private Button exportCsvButton;
+    private Anchor exportXlsxLink;
+    private Button exportXlsxButton;
     private User currentUser;
 
-    public GenerateReceiptView(UserService userService, PaymentService paymentService) {
-        this.userService = userService;
+    public GenerateReceiptView(PaymentService paymentService, ReceiptService receiptService,
+                               PaymentExportService paymentExportService) {
         this.paymentService = paymentService;
+        this.receiptService = receiptService;
+        this.paymentExportService = paymentExportService;
 
         setSizeFull();
         setAlignItems(Alignment.CENTER);
@@ -66,7 +83,7 @@ public class GenerateReceiptView extends VerticalLayout {
         }
 
         try {
-            currentUser = userService.findByUsername(currentUsername);
+            currentUser = CurrentUser.get();
             if (currentUser == null) {
                 Notification.show("User not found. Please log in again.");
                 UI.getCurrent().navigate("login");
@@ -110,29 +127,36 @@ public class GenerateReceiptView extends VerticalLayout {
             // Create grid for payments
             paymentGrid = new Grid<>();
             paymentGrid.setSelectionMode(Grid.SelectionMode.SINGLE);
-            paymentGrid.addColumn(payment -> payment.getStudent().getUsername())
-                .setHeader("Student ID");
-            paymentGrid.addColumn(payment -> payment.getStudent().getFirstName() + " " + payment.getStudent().getLastName())
-                .setHeader("Student Name");
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getFeeType().getFeeName())
-                .setHeader("Fee Type");
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getSemester())
+            paymentGrid.addColumn(PaymentRow::studentUsername)
+                .setHeader("Student ID")
+                .setSortProperty("student.username");
+            paymentGrid.addColumn(PaymentRow::studentName)
+                .setHeader("Student Name")
+                .setSortProperty("student.firstName", "student.lastName");
+            paymentGrid.addColumn(PaymentRow::feeName)
+                .setHeader("Fee Type")
+                .setSortProperty("studentFee.feeType.feeName");
+            paymentGrid.addColumn(PaymentRow::semester)
                 .setHeader("Semester");
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getAcademicYear())
+            paymentGrid.addColumn(PaymentRow::academicYear)
                 .setHeader("Academic Year");
-            paymentGrid.addColumn(payment -> "₹" + payment.getAmount())
-                .setHeader("Amount");
-            paymentGrid.addColumn(payment -> payment.getPaymentMethod().toString())
-                .setHeader("Payment Method");
-            paymentGrid.addColumn(payment -> payment.getPaymentDate()
+            paymentGrid.addColumn(payment -> "₹" + payment.amount())
+                .setHeader("Amount")
+                .setSortProperty("amount");
+            paymentGrid.addColumn(payment -> payment.paymentMethod().toString())
+                .setHeader("Payment Method")
+                .setSortProperty("paymentMethod");
+            paymentGrid.addColumn(payment -> payment.paymentDate()
                 .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")))
-                .setHeader("Payment Date");
-            paymentGrid.addColumn(Payment::getReceiptNumber)
-                .setHeader("Receipt Number");
+                .setHeader("Payment Date")
+                .setSortProperty("paymentDate");
+            paymentGrid.addColumn(PaymentRow::receiptNumber)
+                .setHeader("Receipt Number")
+                .setSortProperty("receiptNumber");
 
             // Generate receipt button
             Button generateButton = new Button("Generate Receipt", e -> {
-                Payment selectedPayment = paymentGrid.getSelectedItems().stream().findFirst().orElse(null);
+                PaymentRow selectedPayment = paymentGrid.getSelectedItems().stream().findFirst().orElse(null);
                 if (selectedPayment == null) {
                     Notification.show("Please select a payment to generate receipt");
                     return;
@@ -141,9 +165,40 @@ public class GenerateReceiptView extends VerticalLayout {
             });
             generateButton.setWidth("300px");
 
-            // Update grid when semester or academic year changes
+            // Term downloads, enabled once a semester and academic year are selected
+            downloadAllButton = new Button("Download All Receipts (ZIP)");
+            downloadAllButton.setWidth("300px");
+            downloadAllButton.setEnabled(false);
+            downloadAllLink = new Anchor();
+            downloadAllLink.getElement().setAttribute("download", true);
+            downloadAllLink.add(downloadAllButton);
+
+            // Term exports for auditors
+            exportCsvButton = new Button("Export Payments (CSV)");
+            exportCsvButton.setEnabled(false);
+            exportCsvLink = new Anchor();
+            exportCsvLink.getElement().setAttribute("download", true);
+            exportCsvLink.add(exportCsvButton);
+
+            exportXlsxButton = new Button("Export Payments (Excel)");
+            exportXlsxButton.setEnabled(false);
+            exportXlsxLink = new Anchor();
+            exportXlsxLink.getElement().setAttribute("download", true);
+            exportXlsxLink.add(exportXlsxButton);
+
+            HorizontalLayout exportButtons = new HorizontalLayout(exportCsvLink, exportXlsxLink);
+
+            // Exact lookup across all terms
+            searchField = new TextField("Search");
+            searchField.setPlaceholder("Receipt number, student ID or transaction reference");
+            searchField.setWidth("300px");
+            searchField.setClearButtonVisible(true);
+            searchField.setValueChangeMode(ValueChangeMode.LAZY);
+
+            // Update grid when semester, academic year or search changes
             semesterComboBox.addValueChangeListener(e -> updatePaymentGrid());
             academicYearComboBox.addValueChangeListener(e -> updatePaymentGrid());
+            searchField.addValueChangeListener(e -> updatePaymentGrid());
 
             // Add all components to main content
             mainContent.add(
@@ -151,8 +206,11 @@ public class GenerateReceiptView extends VerticalLayout {
                 subtitle,
                 semesterComboBox,
                 academicYearComboBox,
+                searchField,
                 paymentGrid,
-                generateButton
+                generateButton,
+                downloadAllLink,
+                exportButtons
             );
 
             add(header, mainContent);
@@ -163,21 +221,62 @@ public class GenerateReceiptView extends VerticalLayout {
     }
 
     private void updatePaymentGrid() {
-        if (semesterComboBox.getValue() == null || academicYearComboBox.getValue() == null) {
-            return;
-        }
+        String term = searchField.getValue().trim();
+        String semester = semesterComboBox.getValue();
+        String academicYear = academicYearComboBox.getValue();
+        updateTermDownloads(semester, academicYear);
 
         try {
-            // Get all payments for the selected semester and academic year
-            List<Payment> payments = paymentService.getAllPaymentsBySemesterAndYear(
-                semesterComboBox.getValue(), academicYearComboBox.getValue());
-            paymentGrid.setItems(payments);
+            if (!term.isEmpty()) {
+                // Search by receipt number, student ID or transaction reference
+                paymentGrid.setItems(
+                    query -> paymentService.searchPayments(
+                        term, VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                    query -> (int) paymentService.countSearchPayments(term));
+            } else if (semester != null && academicYear != null) {
+                // Page through the payments for the selected semester and academic year
+                paymentGrid.setItems(
+                    query -> paymentService.getPaymentsBySemesterAndYear(
+                        semester, academicYear, VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                    query -> (int) paymentService.countPaymentsBySemesterAndYear(semester, academicYear));
+            }
         } catch (Exception e) {
             Notification.show("Error loading payments: " + e.getMessage());
         }
     }
 
-    private void showReceiptDialog(Payment payment) {
+    private void updateTermDownloads(String semester, String academicYear) {
+        boolean termSelected = semester != null && academicYear != null;
+        downloadAllButton.setEnabled(termSelected);
+        exportCsvButton.setEnabled(termSelected);
+        exportXlsxButton.setEnabled(termSelected);
+        if (!termSelected) {
+            downloadAllLink.removeHref();
+            exportCsvLink.removeHref();
+            exportXlsxLink.removeHref();
+            return;
+        }
+
+        String baseName = semester.replaceAll("[^A-Za-z0-9]+", "-") + "-" + academicYear;
+
+        // Every receipt of the selected term as one ZIP, streamed while it is generated
+        StreamResource archive = new StreamResource("receipts-" + baseName + ".zip",
+            (out, session) -> receiptService.writeTermArchive(semester, academicYear, out));
+        archive.setContentType("application/zip");
+        downloadAllLink.setHref(archive);
+
+        StreamResource csv = new StreamResource("payments-" + baseName + ".csv",
+            (out, session) -> paymentExportService.writeCsv(semester, academicYear, out));
+        csv.setContentType("text/csv");
+        exportCsvLink.setHref(csv);
+
+        StreamResource xlsx = new StreamResource("payments-" + baseName + ".xlsx",
+            (out, session) -> paymentExportService.writeXlsx(semester, academicYear, out));
+        xlsx.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        exportXlsxLink.setHref(xlsx);
+    }
+
+    private void showReceiptDialog(PaymentRow payment) {
         Dialog receiptDialog = new Dialog();
         receiptDialog.setHeaderTitle("Payment Receipt");
 
@@ -186,31 +285,31 @@ public class GenerateReceiptView extends VerticalLayout {
         receiptContent.setPadding(true);
 
         // Add receipt details
-        receiptContent.add(new Paragraph("Receipt Number: " + payment.getReceiptNumber()));
-        receiptContent.add(new Paragraph("Date: " + payment.getPaymentDate()
+        receiptContent.add(new Paragraph("Receipt Number: " + payment.receiptNumber()));
+        receiptContent.add(new Paragraph("Date: " + payment.paymentDate()
             .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
-        receiptContent.add(new Paragraph("Student ID: " + payment.getStudent().getUsername()));
-        receiptContent.add(new Paragraph("Student Name: " + payment.getStudent().getFirstName() + " " 
-            + payment.getStudent().getLastName()));
-        receiptContent.add(new Paragraph("Fee Type: " + payment.getStudentFee().getFeeType().getFeeName()));
-        receiptContent.add(new Paragraph("Semester: " + payment.getStudentFee().getSemester()));
-        receiptContent.add(new Paragraph("Academic Year: " + payment.getStudentFee().getAcademicYear()));
-        receiptContent.add(new Paragraph("Amount: ₹" + payment.getAmount()));
-        receiptContent.add(new Paragraph("Payment Method: " + payment.getPaymentMethod().toString()));
-        receiptContent.add(new Paragraph("Transaction Reference: " + payment.getTransactionReference()));
-        receiptContent.add(new Paragraph("Processed By: " + payment.getRecordedBy().getFirstName() + " " 
-            + payment.getRecordedBy().getLastName()));
+        receiptContent.add(new Paragraph("Student ID: " + payment.studentUsername()));
+        receiptContent.add(new Paragraph("Student Name: " + payment.studentName()));
+        receiptContent.add(new Paragraph("Fee Type: " + payment.feeName()));
+        receiptContent.add(new Paragraph("Semester: " + payment.semester()));
+        receiptContent.add(new Paragraph("Academic Year: " + payment.academicYear()));
+        receiptContent.add(new Paragraph("Amount: ₹" + payment.amount()));
+        receiptContent.add(new Paragraph("Payment Method: " + payment.paymentMethod().toString()));
+        receiptContent.add(new Paragraph("Transaction Reference: " + payment.transactionReference()));
+        receiptContent.add(new Paragraph("Processed By: " + payment.recordedByName()));
 
         // Add buttons
-        Button printButton = new Button("Print Receipt", e -> {
-            // TODO: Implement print functionality
-            Notification.show("Print functionality will be implemented");
-        });
+        StreamResource receiptPdf = new StreamResource(receiptService.fileName(payment),
+            (out, session) -> receiptService.writeReceipt(payment, out));
+        receiptPdf.setContentType("application/pdf");
+        Anchor printLink = new Anchor(receiptPdf, "");
+        printLink.setTarget("_blank");
+        printLink.add(new Button("Print Receipt"));
 
         Button closeButton = new Button("Close", e -> receiptDialog.close());
 
         receiptDialog.add(receiptContent);
-        receiptDialog.getFooter().add(printButton, closeButton);
+        receiptDialog.getFooter().add(printLink, closeButton);
         receiptDialog.open();
     }
 } 
\ No newline at end of file
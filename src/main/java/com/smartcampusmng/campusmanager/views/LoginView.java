@@ -1,6 +1,8 @@
 package com.smartcampusmng.campusmanager.views;
 
 import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
+import com.smartcampusmng.campusmanager.security.UserSnapshot;
 import com.smartcampusmng.campusmanager.service.UserService;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
@@ -42,7 +44,8 @@ public class LoginView extends VerticalLayout {
 
         Button loginButton = new Button("Login", e -> {
             try {
-                if (userService.authenticate(username.getValue(), password.getValue(), role.getValue())) {
+                UserSnapshot user = userService.login(username.getValue(), password.getValue(), role.getValue());
+                if (user != null) {
                     // Create authentication token
                     PreAuthenticatedAuthenticationToken auth = new PreAuthenticatedAuthenticationToken(
                         username.getValue(),
@@ -56,6 +59,7 @@ public class LoginView extends VerticalLayout {
                     // Store user info in Vaadin session
                     VaadinSession.getCurrent().setAttribute("username", username.getValue());
                     VaadinSession.getCurrent().setAttribute("role", role.getValue());
+                    CurrentUser.set(user);
                     
                     Notification.show("Login successful!");
                     // Navigate to dashboard
@@ -1,5 +1,6 @@
 package com.smartcampusmng.campusmanager.views;
 
+import com.smartcampusmng.campusmanager.security.CurrentUser;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.html.H1;
@@ -27,6 +28,7 @@ public class MainView extends VerticalLayout {
         Button profileButton = new Button("Profile", e -> UI.getCurrent().navigate("profile"));
         Button logoutButton = new Button("Logout", e -> {
             VaadinSession.getCurrent().setAttribute("username", null);
+            CurrentUser.clear();
             UI.getCurrent().navigate("login");
         });
 
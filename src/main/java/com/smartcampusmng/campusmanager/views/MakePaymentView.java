@@ -2,6 +2,7 @@ package com.smartcampusmng.campusmanager.views;
 
 import com.smartcampusmng.campusmanager.entity.*;
 import com.smartcampusmng.campusmanager.service.*;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.checkbox.Checkbox;
@@ -24,9 +25,11 @@ import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Route("make-payment")
@@ -34,7 +37,6 @@ import java.util.stream.Collectors;
 @AnonymousAllowed
 public class MakePaymentView extends VerticalLayout {
 
-    private final UserService userService;
     private final FeeTypeService feeTypeService;
     private final StudentFeeService studentFeeService;
     private final PaymentService paymentService;
@@ -44,9 +46,8 @@ public class MakePaymentView extends VerticalLayout {
     private ComboBox<String> academicYearComboBox;
     private User currentUser;
 
-    public MakePaymentView(UserService userService, FeeTypeService feeTypeService,
+    public MakePaymentView(FeeTypeService feeTypeService,
                          StudentFeeService studentFeeService, PaymentService paymentService) {
-        this.userService = userService;
         this.feeTypeService = feeTypeService;
         this.studentFeeService = studentFeeService;
         this.paymentService = paymentService;
@@ -77,7 +78,7 @@ public class MakePaymentView extends VerticalLayout {
         }
 
         try {
-            currentUser = userService.findByUsername(currentUsername);
+            currentUser = CurrentUser.get();
             if (currentUser == null) {
                 Notification.show("User not found. Please log in again.");
                 UI.getCurrent().navigate("login");
@@ -139,6 +140,7 @@ public class MakePaymentView extends VerticalLayout {
             pendingFeesGrid.addColumn(fee -> "₹" + fee.getAmount()).setHeader("Amount");
             pendingFeesGrid.addColumn(fee -> fee.getFeeType().getFrequency().toString()).setHeader("Frequency");
             pendingFeesGrid.addColumn(StudentFee::getDueDate).setHeader("Due Date");
+            pendingFeesGrid.addColumn(fee -> fee.getStatus().toString()).setHeader("Status");
 
             // Update grid when semester or academic year changes
             semesterComboBox.addValueChangeListener(e -> updateFeesGrid());
@@ -191,9 +193,9 @@ public class MakePaymentView extends VerticalLayout {
             List<StudentFee> allFees = studentFeeService.getFeesForStudentAndSemester(
                 currentUser, semesterComboBox.getValue(), academicYearComboBox.getValue());
             
-            // Filter for pending fees
+            // Filter for unpaid fees, overdue ones still have to be paid
             List<StudentFee> pendingFees = allFees.stream()
-                .filter(fee -> fee.getStatus() == StudentFee.PaymentStatus.PENDING)
+                .filter(fee -> fee.getStatus() != StudentFee.PaymentStatus.PAID)
                 .collect(Collectors.toList());
 
             // Update the grid with pending fees
@@ -224,32 +226,38 @@ public class MakePaymentView extends VerticalLayout {
         TextField transactionRef = new TextField("Transaction Reference");
         transactionRef.setWidthFull();
 
+        // One key per dialog, so a double click or a resubmit pays the selected fees only once
+        String idempotencyKey = UUID.randomUUID().toString();
+
         Button confirmButton = new Button("Confirm Payment", e -> {
             if (paymentMethod.getValue() == null) {
                 Notification.show("Please select a payment method");
+                e.getSource().setEnabled(true);
                 return;
             }
 
             try {
-                // Process each selected fee
-                for (StudentFee fee : pendingFeesGrid.getSelectedItems()) {
-                    paymentService.processPayment(
-                        fee,
-                        currentUser,
-                        currentUser, // For now, student is recording their own payment
-                        paymentMethod.getValue(),
-                        transactionRef.getValue()
-                    );
-                }
+                // Pay all selected fees in one checkout
+                PaymentService.CheckoutReceipt receipt = paymentService.processPayments(
+                    new ArrayList<>(pendingFeesGrid.getSelectedItems()),
+                    currentUser,
+                    currentUser, // For now, student is recording their own payment
+                    paymentMethod.getValue(),
+                    transactionRef.getValue(),
+                    idempotencyKey
+                );
 
                 Notification.show("Payment processed successfully!");
                 paymentDialog.close();
                 updateFeesGrid();
                 totalAmount.setValue(0.0); // Reset total after successful payment
+                showReceiptDialog(receipt);
             } catch (Exception ex) {
                 Notification.show("Error processing payment: " + ex.getMessage());
+                e.getSource().setEnabled(true);
             }
         });
+        confirmButton.setDisableOnClick(true);
 
         Button cancelButton = new Button("Cancel", e -> paymentDialog.close());
 
@@ -258,4 +266,34 @@ public class MakePaymentView extends VerticalLayout {
         paymentDialog.getFooter().add(cancelButton, confirmButton);
         paymentDialog.open();
     }
-} 
\ No newline at end of file
+
+    private void showReceiptDialog(PaymentService.CheckoutReceipt receipt) {
+        Dialog receiptDialog = new Dialog();
+        receiptDialog.setHeaderTitle("Payment Receipt");
+
+        VerticalLayout receiptContent = new VerticalLayout();
+        receiptContent.setSpacing(true);
+        receiptContent.setPadding(true);
+
+        receiptContent.add(new Span("Date: " + receipt.paymentDate()
+            .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))));
+        receiptContent.add(new Span("Student: " + receipt.studentName() + " (" + receipt.studentUsername() + ")"));
+        receiptContent.add(new Span("Payment Method: " + receipt.paymentMethod()));
+        receiptContent.add(new Span("Transaction Reference: " + receipt.transactionReference()));
+
+        Grid<PaymentService.ReceiptLine> linesGrid = new Grid<>();
+        linesGrid.setAllRowsVisible(true);
+        linesGrid.addColumn(PaymentService.ReceiptLine::receiptNumber).setHeader("Receipt Number");
+        linesGrid.addColumn(PaymentService.ReceiptLine::feeName).setHeader("Fee Type");
+        linesGrid.addColumn(line -> "₹" + line.amount()).setHeader("Amount");
+        linesGrid.setItems(receipt.lines());
+
+        receiptContent.add(linesGrid, new H2("Total: ₹" + receipt.total()));
+
+        Button closeButton = new Button("Close", e -> receiptDialog.close());
+
+        receiptDialog.add(receiptContent);
+        receiptDialog.getFooter().add(closeButton);
+        receiptDialog.open();
+    }
+}
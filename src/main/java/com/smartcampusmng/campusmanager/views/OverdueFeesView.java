@@ -1,11 +1,14 @@
 package com.smartcampusmng.campusmanager.views;
 
+import com.smartcampusmng.campusmanager.dto.AlertCursor;
+import com.smartcampusmng.campusmanager.dto.PendingFeeRow;
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
 import com.smartcampusmng.campusmanager.entity.StudentFee;
 import com.smartcampusmng.campusmanager.entity.User;
-import com.smartcampusmng.campusmanager.entity.FeeAlert;
+import com.smartcampusmng.campusmanager.service.StudentFeeRolloverService;
 import com.smartcampusmng.campusmanager.service.StudentFeeService;
-import com.smartcampusmng.campusmanager.service.UserService;
 import com.smartcampusmng.campusmanager.service.FeeAlertService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -23,32 +26,42 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
+import com.vaadin.flow.spring.data.VaadinSpringDataHelpers;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Route("pending-fee-alerts")
 @PageTitle("Pending Fee Alerts | Campus Manager")
 @AnonymousAllowed
 public class OverdueFeesView extends VerticalLayout {
+    private static final int SENT_ALERTS_PAGE_SIZE = 50;
+    private static final String ROLLOVER_LABEL = "Provision Term Fees";
 
-    private final UserService userService;
     private final StudentFeeService studentFeeService;
     private final FeeAlertService feeAlertService;
-    private Grid<StudentFee> pendingFeesGrid;
-    private Grid<FeeAlert> sentAlertsGrid;
+    private final StudentFeeRolloverService studentFeeRolloverService;
+    private Grid<PendingFeeRow> pendingFeesGrid;
+    private Grid<SentAlertRow> sentAlertsGrid;
+    private final List<SentAlertRow> sentAlerts = new ArrayList<>();
+    private Button olderSentAlertsButton;
+    private Button rolloverButton;
+    private boolean sentAlertsLoaded;
     private User currentUser;
     private ComboBox<String> semesterComboBox;
     private ComboBox<String> academicYearComboBox;
     private VerticalLayout pendingFeesLayout;
     private VerticalLayout sentAlertsLayout;
 
-    public OverdueFeesView(UserService userService, StudentFeeService studentFeeService,
-                          FeeAlertService feeAlertService) {
-        this.userService = userService;
+    public OverdueFeesView(StudentFeeService studentFeeService,
+                          FeeAlertService feeAlertService,
+                          StudentFeeRolloverService studentFeeRolloverService) {
         this.studentFeeService = studentFeeService;
         this.feeAlertService = feeAlertService;
+        this.studentFeeRolloverService = studentFeeRolloverService;
 
         setSizeFull();
         setAlignItems(Alignment.CENTER);
@@ -76,7 +89,7 @@ public class OverdueFeesView extends VerticalLayout {
         }
 
         try {
-            currentUser = userService.findByUsername(currentUsername);
+            currentUser = CurrentUser.get();
 
             // Create header with back button
             HorizontalLayout header = new HorizontalLayout();
@@ -115,6 +128,10 @@ public class OverdueFeesView extends VerticalLayout {
             tabs.addSelectedChangeListener(event -> {
                 pendingFeesLayout.setVisible(tabs.getSelectedTab() == pendingFeesTab);
                 sentAlertsLayout.setVisible(tabs.getSelectedTab() == sentAlertsTab);
+                // Sent alerts are only read once the tab is opened
+                if (tabs.getSelectedTab() == sentAlertsTab && !sentAlertsLoaded) {
+                    loadSentAlerts();
+                }
             });
 
             // Add components to main content
@@ -125,7 +142,6 @@ public class OverdueFeesView extends VerticalLayout {
 
             // Load initial data
             loadPendingFees();
-            loadSentAlerts();
 
         } catch (Exception e) {
             Notification.show("Error loading pending fees: " + e.getMessage());
@@ -156,7 +172,11 @@ public class OverdueFeesView extends VerticalLayout {
         academicYearComboBox.setPlaceholder("Select Academic Year");
         academicYearComboBox.addValueChangeListener(e -> loadPendingFees());
 
-        filterLayout.add(semesterComboBox, academicYearComboBox);
+        // Create fees for every student of the selected term in one go
+        rolloverButton = new Button(ROLLOVER_LABEL, e -> runTermRollover());
+
+        filterLayout.add(semesterComboBox, academicYearComboBox, rolloverButton);
+        filterLayout.setAlignItems(Alignment.BASELINE);
 
         // Create grid for pending fees
         pendingFeesGrid = new Grid<>();
@@ -164,37 +184,37 @@ public class OverdueFeesView extends VerticalLayout {
         pendingFeesGrid.setHeight("500px");
         
         // Add columns to the grid
-        pendingFeesGrid.addColumn(fee -> fee.getStudent().getFirstName() + " " + fee.getStudent().getLastName())
+        pendingFeesGrid.addColumn(PendingFeeRow::studentName)
             .setHeader("Student Name")
-            .setSortable(true);
+            .setSortProperty("student.firstName", "student.lastName");
             
-        pendingFeesGrid.addColumn(fee -> fee.getStudent().getEmail())
+        pendingFeesGrid.addColumn(PendingFeeRow::studentEmail)
             .setHeader("Email")
-            .setSortable(true);
+            .setSortProperty("student.email");
             
-        pendingFeesGrid.addColumn(fee -> fee.getFeeType().getFeeName())
+        pendingFeesGrid.addColumn(PendingFeeRow::feeName)
             .setHeader("Fee Type")
-            .setSortable(true);
+            .setSortProperty("feeType.feeName");
             
-        pendingFeesGrid.addColumn(fee -> fee.getSemester())
+        pendingFeesGrid.addColumn(PendingFeeRow::semester)
             .setHeader("Semester")
-            .setSortable(true);
+            .setSortProperty("semester");
             
-        pendingFeesGrid.addColumn(fee -> fee.getAcademicYear())
+        pendingFeesGrid.addColumn(PendingFeeRow::academicYear)
             .setHeader("Academic Year")
-            .setSortable(true);
+            .setSortProperty("academicYear");
             
-        pendingFeesGrid.addColumn(fee -> "₹" + String.format("%,.2f", fee.getAmount()))
+        pendingFeesGrid.addColumn(fee -> "₹" + String.format("%,.2f", fee.amount()))
             .setHeader("Amount")
-            .setSortable(true);
+            .setSortProperty("amount");
             
-        pendingFeesGrid.addColumn(StudentFee::getDueDate)
+        pendingFeesGrid.addColumn(PendingFeeRow::dueDate)
             .setHeader("Due Date")
-            .setSortable(true);
+            .setSortProperty("dueDate");
             
-        pendingFeesGrid.addColumn(fee -> fee.getStatus().toString())
+        pendingFeesGrid.addColumn(fee -> fee.status().toString())
             .setHeader("Status")
-            .setSortable(true);
+            .setSortProperty("status");
 
         // Add selection mode to grid
         pendingFeesGrid.setSelectionMode(Grid.SelectionMode.MULTI);
@@ -223,44 +243,40 @@ public class OverdueFeesView extends VerticalLayout {
         sentAlertsGrid.setWidthFull();
         sentAlertsGrid.setHeight("500px");
         
-        // Add columns to the grid
-        sentAlertsGrid.addColumn(alert -> alert.getStudent().getFirstName() + " " + alert.getStudent().getLastName())
-            .setHeader("Student Name")
-            .setSortable(true);
+        // Rows are pages in alert order, so columns don't sort: sorting the rows loaded so far
+        // would look like a full sort but leave out the older alerts
+        sentAlertsGrid.addColumn(SentAlertRow::studentName)
+            .setHeader("Student Name");
             
-        sentAlertsGrid.addColumn(alert -> alert.getStudent().getEmail())
-            .setHeader("Email")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::studentEmail)
+            .setHeader("Email");
             
-        sentAlertsGrid.addColumn(alert -> alert.getStudentFee().getFeeType().getFeeName())
-            .setHeader("Fee Type")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::feeName)
+            .setHeader("Fee Type");
             
-        sentAlertsGrid.addColumn(alert -> alert.getStudentFee().getSemester())
-            .setHeader("Semester")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::semester)
+            .setHeader("Semester");
             
-        sentAlertsGrid.addColumn(alert -> alert.getStudentFee().getAcademicYear())
-            .setHeader("Academic Year")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::academicYear)
+            .setHeader("Academic Year");
             
-        sentAlertsGrid.addColumn(alert -> "₹" + String.format("%,.2f", alert.getStudentFee().getAmount()))
-            .setHeader("Amount")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(alert -> "₹" + String.format("%,.2f", alert.amount()))
+            .setHeader("Amount");
             
-        sentAlertsGrid.addColumn(alert -> alert.getStudentFee().getDueDate())
-            .setHeader("Due Date")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::dueDate)
+            .setHeader("Due Date");
             
-        sentAlertsGrid.addColumn(FeeAlert::getAlertDate)
-            .setHeader("Alert Sent Date")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::alertDate)
+            .setHeader("Alert Sent Date");
             
-        sentAlertsGrid.addColumn(FeeAlert::getMessage)
-            .setHeader("Alert Message")
-            .setSortable(true);
+        sentAlertsGrid.addColumn(SentAlertRow::message)
+            .setHeader("Alert Message");
 
-        layout.add(sentAlertsGrid);
+        // Older alerts are read a page at a time, after the oldest row shown
+        olderSentAlertsButton = new Button("Load Older Alerts", e -> appendSentAlerts());
+        olderSentAlertsButton.setVisible(false);
+
+        layout.add(sentAlertsGrid, olderSentAlertsButton);
         return layout;
     }
 
@@ -274,35 +290,84 @@ public class OverdueFeesView extends VerticalLayout {
                 return;
             }
 
-            // Get all pending fees for the selected semester and academic year
-            List<StudentFee> pendingFees = studentFeeService.getPendingFeesBySemesterAndYear(semester, academicYear);
-            
-            // Filter out fees that are already alerted
-            List<StudentFee> feesWithoutAlerts = pendingFees.stream()
-                .filter(fee -> !fee.isAlerted())
-                .collect(Collectors.toList());
-            
-            if (feesWithoutAlerts.isEmpty()) {
+            // Page through the pending fees without alerts, filtered and sorted by the database
+            pendingFeesGrid.setItems(
+                query -> studentFeeService.getUnalertedPendingFees(
+                    semester, academicYear, VaadinSpringDataHelpers.toSpringPageRequest(query)).stream(),
+                query -> (int) studentFeeService.countUnalertedPendingFees(semester, academicYear));
+
+            long pendingCount = studentFeeService.countUnalertedPendingFees(semester, academicYear);
+            if (pendingCount == 0) {
                 Notification.show("No pending fees found for the selected semester and academic year");
             } else {
-                pendingFeesGrid.setItems(feesWithoutAlerts);
-                Notification.show("Found " + feesWithoutAlerts.size() + " pending fees");
+                Notification.show("Found " + pendingCount + " pending fees");
             }
         } catch (Exception e) {
             Notification.show("Error loading pending fees: " + e.getMessage());
         }
     }
 
+    private void runTermRollover() {
+        String semester = semesterComboBox.getValue();
+        String academicYear = academicYearComboBox.getValue();
+
+        if (semester == null || academicYear == null) {
+            Notification.show("Please select both semester and academic year");
+            return;
+        }
+
+        // The rollover runs on its own thread; progress and the result are pushed back to this UI
+        UI ui = UI.getCurrent();
+        rolloverButton.setEnabled(false);
+        rolloverButton.setText("Provisioning...");
+        try {
+            studentFeeRolloverService.startRolloverTerm(semester, academicYear,
+                    progress -> ui.access(() -> rolloverButton.setText("Provisioning... "
+                        + progress.studentsProcessed() + " students, " + progress.rowsCreated() + " fees")))
+                .whenComplete((result, error) -> ui.access(() -> finishTermRollover(result, error)));
+        } catch (Exception e) {
+            finishTermRollover(null, e);
+        }
+    }
+
+    private void finishTermRollover(StudentFeeRolloverService.RolloverResult result, Throwable error) {
+        rolloverButton.setText(ROLLOVER_LABEL);
+        rolloverButton.setEnabled(true);
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            Notification.show("Error provisioning term fees: " + cause.getMessage());
+            return;
+        }
+        Notification.show("Created " + result.rowsCreated() + " fees for " + result.studentsProcessed()
+            + " students (" + String.format("%.0f", result.rowsPerSecond()) + " rows/sec)");
+        loadPendingFees();
+    }
+
     private void loadSentAlerts() {
+        sentAlerts.clear();
+        sentAlertsGrid.setItems(sentAlerts);
+        sentAlertsLoaded = true;
+        appendSentAlerts();
+    }
+
+    private void appendSentAlerts() {
         try {
-            List<FeeAlert> sentAlerts = feeAlertService.getAlertsBySentBy(currentUser);
-            sentAlertsGrid.setItems(sentAlerts);
+            AlertCursor before = null;
+            if (!sentAlerts.isEmpty()) {
+                SentAlertRow oldest = sentAlerts.get(sentAlerts.size() - 1);
+                before = new AlertCursor(oldest.alertDate(), oldest.alertId());
+            }
+            List<SentAlertRow> page = feeAlertService.getSentAlertRows(currentUser, before, SENT_ALERTS_PAGE_SIZE);
+            sentAlerts.addAll(page);
+            sentAlertsGrid.getDataProvider().refreshAll();
+            olderSentAlertsButton.setVisible(page.size() == SENT_ALERTS_PAGE_SIZE);
         } catch (Exception e) {
             Notification.show("Error loading sent alerts: " + e.getMessage());
         }
     }
 
-    private void showAlertDialog(Set<StudentFee> selectedFees) {
+    private void showAlertDialog(Set<PendingFeeRow> selectedRows) {
         Dialog alertDialog = new Dialog();
         alertDialog.setHeaderTitle("Send Alert to Students");
 
@@ -317,23 +382,21 @@ public class OverdueFeesView extends VerticalLayout {
             }
 
             try {
-                // Send alerts to selected students
-                for (StudentFee fee : selectedFees) {
-                    try {
-                        feeAlertService.createAlert(
-                            fee.getStudent(),
-                            fee,
-                            currentUser,
-                            messageArea.getValue()
-                        );
-                    } catch (Exception ex) {
-                        Notification.show("Error sending alert to " + 
-                            fee.getStudent().getFirstName() + " " + 
-                            fee.getStudent().getLastName() + ": " + ex.getMessage());
-                    }
-                }
-
-                Notification.show("Alerts sent successfully to " + selectedFees.size() + " students");
+                // Load the selected fees with their students in one query
+                List<StudentFee> selectedFees = studentFeeService.getFeesByIds(selectedRows.stream()
+                    .map(PendingFeeRow::studentFeeId)
+                    .collect(Collectors.toList()));
+
+                // Send alerts to selected students in one go
+                List<FeeAlertService.AlertResult> results = feeAlertService.createAlerts(
+                    selectedFees, currentUser, messageArea.getValue());
+
+                long sent = results.stream()
+                    .filter(result -> result.outcome() == FeeAlertService.AlertOutcome.SENT)
+                    .count();
+                long skipped = results.size() - sent;
+                Notification.show("Alerts sent successfully to " + sent + " students"
+                    + (skipped > 0 ? " (" + skipped + " had already been alerted)" : ""));
                 alertDialog.close();
                 loadPendingFees(); // Refresh the grid
                 loadSentAlerts(); // Refresh sent alerts
@@ -1,9 +1,9 @@
 package com.smartcampusmng.campusmanager.views;
 
-import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.service.PaymentService;
-import com.smartcampusmng.campusmanager.service.UserService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
@@ -27,15 +27,13 @@ import java.util.List;
 @AnonymousAllowed
 public class PaymentHistoryView extends VerticalLayout {
 
-    private final UserService userService;
     private final PaymentService paymentService;
-    private Grid<Payment> paymentGrid;
+    private Grid<PaymentRow> paymentGrid;
     private ComboBox<String> semesterComboBox;
     private ComboBox<String> academicYearComboBox;
     private User currentUser;
 
-    public PaymentHistoryView(UserService userService, PaymentService paymentService) {
-        this.userService = userService;
+    public PaymentHistoryView(PaymentService paymentService) {
         this.paymentService = paymentService;
 
         setSizeFull();
@@ -64,7 +62,7 @@ public class PaymentHistoryView extends VerticalLayout {
         }
 
         try {
-            currentUser = userService.findByUsername(currentUsername);
+            currentUser = CurrentUser.get();
             if (currentUser == null) {
                 Notification.show("User not found. Please log in again.");
                 UI.getCurrent().navigate("login");
@@ -114,22 +112,22 @@ public class PaymentHistoryView extends VerticalLayout {
 
             // Create grid for payment history
             paymentGrid = new Grid<>();
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getFeeType().getFeeName())
+            paymentGrid.addColumn(PaymentRow::feeName)
                 .setHeader("Fee Type");
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getSemester())
+            paymentGrid.addColumn(PaymentRow::semester)
                 .setHeader("Semester");
-            paymentGrid.addColumn(payment -> payment.getStudentFee().getAcademicYear())
+            paymentGrid.addColumn(PaymentRow::academicYear)
                 .setHeader("Academic Year");
-            paymentGrid.addColumn(payment -> "₹" + payment.getAmount())
+            paymentGrid.addColumn(payment -> "₹" + payment.amount())
                 .setHeader("Amount");
-            paymentGrid.addColumn(payment -> payment.getPaymentMethod().toString())
+            paymentGrid.addColumn(payment -> payment.paymentMethod().toString())
                 .setHeader("Payment Method");
-            paymentGrid.addColumn(payment -> payment.getPaymentDate()
+            paymentGrid.addColumn(payment -> payment.paymentDate()
                 .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")))
                 .setHeader("Payment Date");
-            paymentGrid.addColumn(Payment::getReceiptNumber)
+            paymentGrid.addColumn(PaymentRow::receiptNumber)
                 .setHeader("Receipt Number");
-            paymentGrid.addColumn(Payment::getTransactionReference)
+            paymentGrid.addColumn(PaymentRow::transactionReference)
                 .setHeader("Transaction Reference");
 
             // Update grid when semester or academic year changes
@@ -157,7 +155,7 @@ public class PaymentHistoryView extends VerticalLayout {
             return;
         }
 
-        List<Payment> payments = paymentService.getPaymentsForStudentAndSemester(
+        List<PaymentRow> payments = paymentService.getPaymentRowsForStudentAndSemester(
             currentUser, semesterComboBox.getValue(), academicYearComboBox.getValue());
         paymentGrid.setItems(payments);
     }
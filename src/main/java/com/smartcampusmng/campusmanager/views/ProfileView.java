@@ -2,6 +2,8 @@ package com.smartcampusmng.campusmanager.views;
 
 import com.smartcampusmng.campusmanager.entity.User;
 import com.smartcampusmng.campusmanager.service.UserService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
+import com.smartcampusmng.campusmanager.security.UserSnapshot;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.formlayout.FormLayout;
@@ -40,7 +42,7 @@ public class ProfileView extends VerticalLayout {
         }
 
         try {
-            User currentUser = userService.findByUsername(currentUsername);
+            User currentUser = CurrentUser.get();
             if (currentUser == null) {
                 Notification.show("User not found. Please log in again.");
                 UI.getCurrent().navigate("login");
@@ -58,6 +60,7 @@ public class ProfileView extends VerticalLayout {
             Button logoutButton = new Button("Logout", e -> {
                 SecurityContextHolder.clearContext();
                 VaadinSession.getCurrent().setAttribute("username", null);
+                CurrentUser.clear();
                 VaadinSession.getCurrent().setAttribute("role", null);
                 UI.getCurrent().navigate("login");
             });
@@ -99,7 +102,9 @@ public class ProfileView extends VerticalLayout {
                     updatedUser.setEmail(email.getValue());
                     updatedUser.setPassword(password.getValue());
 
-                    userService.updateUserProfile(currentUsername, updatedUser);
+                    User savedUser = userService.updateUserProfile(currentUsername, updatedUser);
+                    // Replace the session snapshot so other views show the new details
+                    CurrentUser.set(UserSnapshot.from(savedUser));
                     Notification.show("Profile updated successfully!");
                 } catch (Exception ex) {
                     Notification.show(ex.getMessage());
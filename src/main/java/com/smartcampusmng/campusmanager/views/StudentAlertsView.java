@@ -1,9 +1,13 @@
 package com.smartcampusmng.campusmanager.views;
 
-import com.smartcampusmng.campusmanager.entity.FeeAlert;
+import com.smartcampusmng.campusmanager.dto.AlertCursor;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
 import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.AlertInbox;
 import com.smartcampusmng.campusmanager.service.FeeAlertService;
-import com.smartcampusmng.campusmanager.service.UserService;
+import com.smartcampusmng.campusmanager.security.CurrentUser;
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.DetachEvent;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.grid.Grid;
@@ -16,22 +20,29 @@ import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import com.vaadin.flow.server.VaadinSession;
 import com.vaadin.flow.server.auth.AnonymousAllowed;
+import com.vaadin.flow.shared.Registration;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Route("student-alerts")
 @PageTitle("Fee Alerts | Campus Manager")
 @AnonymousAllowed
 public class StudentAlertsView extends VerticalLayout {
+    private static final int PAGE_SIZE = 50;
 
-    private final UserService userService;
     private final FeeAlertService feeAlertService;
-    private Grid<FeeAlert> alertsGrid;
+    private final AlertInbox alertInbox;
+    private final List<StudentAlertRow> alerts = new ArrayList<>();
+    private Grid<StudentAlertRow> alertsGrid;
+    private Button olderAlertsButton;
     private User currentUser;
+    private Registration inboxRegistration;
 
-    public StudentAlertsView(UserService userService, FeeAlertService feeAlertService) {
-        this.userService = userService;
+    public StudentAlertsView(FeeAlertService feeAlertService, AlertInbox alertInbox) {
         this.feeAlertService = feeAlertService;
+        this.alertInbox = alertInbox;
 
         setSizeFull();
         setAlignItems(Alignment.CENTER);
@@ -59,7 +70,7 @@ public class StudentAlertsView extends VerticalLayout {
         }
 
         try {
-            currentUser = userService.findByUsername(currentUsername);
+            currentUser = CurrentUser.get();
 
             // Create header with back button
             HorizontalLayout header = new HorizontalLayout();
@@ -86,37 +97,43 @@ public class StudentAlertsView extends VerticalLayout {
             alertsGrid.setWidthFull();
             alertsGrid.setHeight("500px");
             
-            // Add columns to the grid
-            alertsGrid.addColumn(alert -> alert.getStudentFee().getFeeType().getFeeName())
-                .setHeader("Fee Type")
-                .setSortable(true);
+            // Rows are pages in alert order, so columns don't sort: sorting the rows loaded so far
+            // would look like a full sort but leave out the older alerts
+            alertsGrid.addColumn(alert -> alert.unread() ? "New" : "Read")
+                .setHeader("Status");
+
+            alertsGrid.addColumn(StudentAlertRow::feeName)
+                .setHeader("Fee Type");
                 
-            alertsGrid.addColumn(alert -> alert.getStudentFee().getSemester())
-                .setHeader("Semester")
-                .setSortable(true);
+            alertsGrid.addColumn(StudentAlertRow::semester)
+                .setHeader("Semester");
                 
-            alertsGrid.addColumn(alert -> alert.getStudentFee().getAcademicYear())
-                .setHeader("Academic Year")
-                .setSortable(true);
+            alertsGrid.addColumn(StudentAlertRow::academicYear)
+                .setHeader("Academic Year");
                 
-            alertsGrid.addColumn(alert -> "₹" + String.format("%,.2f", alert.getStudentFee().getAmount()))
-                .setHeader("Amount")
-                .setSortable(true);
+            alertsGrid.addColumn(alert -> "₹" + String.format("%,.2f", alert.amount()))
+                .setHeader("Amount");
                 
-            alertsGrid.addColumn(alert -> alert.getStudentFee().getDueDate())
-                .setHeader("Due Date")
-                .setSortable(true);
+            alertsGrid.addColumn(StudentAlertRow::dueDate)
+                .setHeader("Due Date");
                 
-            alertsGrid.addColumn(FeeAlert::getAlertDate)
-                .setHeader("Alert Date")
-                .setSortable(true);
+            alertsGrid.addColumn(StudentAlertRow::alertDate)
+                .setHeader("Alert Date");
                 
-            alertsGrid.addColumn(FeeAlert::getMessage)
-                .setHeader("Alert Message")
-                .setSortable(true);
+            alertsGrid.addColumn(StudentAlertRow::message)
+                .setHeader("Alert Message");
+
+            // Clicking an alert marks it as read
+            alertsGrid.addItemClickListener(e -> markRead(e.getItem()));
+
+            // Older alerts are read a page at a time, after the oldest row shown
+            olderAlertsButton = new Button("Load Older Alerts", e -> appendAlerts());
+            olderAlertsButton.setVisible(false);
+
+            Button markAllReadButton = new Button("Mark All as Read", e -> markAllRead());
 
             // Add components to main content
-            mainContent.add(title, subtitle, alertsGrid);
+            mainContent.add(title, subtitle, markAllReadButton, alertsGrid, olderAlertsButton);
 
             // Add header and main content to view
             add(header, mainContent);
@@ -130,18 +147,83 @@ public class StudentAlertsView extends VerticalLayout {
         }
     }
 
+    // New alerts are pushed while the view is open instead of reloading the whole inbox
+    @Override
+    protected void onAttach(AttachEvent attachEvent) {
+        super.onAttach(attachEvent);
+        if (alertsGrid == null) {
+            return;
+        }
+        UI ui = attachEvent.getUI();
+        Runnable unsubscribe = alertInbox.subscribe(currentUser.getUserId(),
+            alert -> ui.access(() -> showNewAlert(alert)));
+        inboxRegistration = unsubscribe::run;
+    }
+
+    @Override
+    protected void onDetach(DetachEvent detachEvent) {
+        if (inboxRegistration != null) {
+            inboxRegistration.remove();
+            inboxRegistration = null;
+        }
+        super.onDetach(detachEvent);
+    }
+
+    private void showNewAlert(StudentAlertRow alert) {
+        alerts.add(0, alert);
+        alertsGrid.getDataProvider().refreshAll();
+        Notification.show("New fee alert: " + alert.feeName());
+    }
+
     private void loadAlerts() {
+        alertsGrid.setItems(alerts);
+        appendAlerts();
+        if (alerts.isEmpty()) {
+            Notification.show("No fee alerts found");
+        } else {
+            int unread = feeAlertService.getUnreadCount(currentUser.getUserId());
+            Notification.show("You have " + unread + " unread fee alerts");
+        }
+    }
+
+    private void appendAlerts() {
         try {
-            List<FeeAlert> alerts = feeAlertService.getAlertsForStudent(currentUser);
-            alertsGrid.setItems(alerts);
-            
-            if (alerts.isEmpty()) {
-                Notification.show("No fee alerts found");
-            } else {
-                Notification.show("Found " + alerts.size() + " fee alerts");
+            AlertCursor before = null;
+            if (!alerts.isEmpty()) {
+                StudentAlertRow oldest = alerts.get(alerts.size() - 1);
+                before = new AlertCursor(oldest.alertDate(), oldest.alertId());
             }
+            List<StudentAlertRow> page = feeAlertService.getStudentAlertRows(currentUser, before, PAGE_SIZE);
+            alerts.addAll(page);
+            alertsGrid.getDataProvider().refreshAll();
+            olderAlertsButton.setVisible(page.size() == PAGE_SIZE);
         } catch (Exception e) {
             Notification.show("Error loading alerts: " + e.getMessage());
         }
     }
+
+    private void markRead(StudentAlertRow alert) {
+        if (!alert.unread()) {
+            return;
+        }
+        try {
+            feeAlertService.markRead(currentUser, List.of(alert.alertId()));
+            LocalDateTime readAt = LocalDateTime.now();
+            alerts.replaceAll(row -> row.alertId().equals(alert.alertId()) ? row.withReadAt(readAt) : row);
+            alertsGrid.getDataProvider().refreshAll();
+        } catch (Exception e) {
+            Notification.show("Error updating alert: " + e.getMessage());
+        }
+    }
+
+    private void markAllRead() {
+        try {
+            feeAlertService.markAllRead(currentUser);
+            LocalDateTime readAt = LocalDateTime.now();
+            alerts.replaceAll(row -> row.unread() ? row.withReadAt(readAt) : row);
+            alertsGrid.getDataProvider().refreshAll();
+        } catch (Exception e) {
+            Notification.show("Error updating alerts: " + e.getMessage());
+        }
+    }
 } 
\ No newline at end of file
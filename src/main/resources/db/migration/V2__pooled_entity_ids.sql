@@ -0,0 +1,16 @@
+-- Student fees, fee alerts and payments take their ids from pooled generators, 50 at a time,
+-- instead of AUTO_INCREMENT. MySQL has no sequences, so Hibernate keeps each counter in a one-row
+-- table. A counter value v hands out the ids v-49..v, so each counter starts 50 above the ids
+-- AUTO_INCREMENT has used.
+
+INSERT INTO student_fees_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM student_fees_seq);
+UPDATE student_fees_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(student_fee_id), 0) + 50 FROM student_fees));
+
+INSERT INTO fee_alerts_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM fee_alerts_seq);
+UPDATE fee_alerts_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(alert_id), 0) + 50 FROM fee_alerts));
+
+INSERT INTO payments_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM payments_seq);
+UPDATE payments_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(payment_id), 0) + 50 FROM payments));
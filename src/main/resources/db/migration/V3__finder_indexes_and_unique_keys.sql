@@ -0,0 +1,63 @@
+-- Indexes for the repository finders, and unique keys where the code checks before it inserts.
+-- Requires MySQL 8.0.13 or later for the functional key parts.
+
+-- Fees: one row per student, fee type and term. Concurrent provisioning may have left copies;
+-- an unpaid copy goes if there is a paid one or an older one. Paid fees are never removed, so the
+-- unique key fails to build if two copies were paid; those need sorting out by hand. The nightly
+-- balance rebuild brings the ledger back in line with the fees removed here.
+DELETE FROM fee_alerts WHERE student_fee_id IN (
+    SELECT student_fee_id FROM (
+        SELECT DISTINCT sf.student_fee_id FROM student_fees sf
+        WHERE NOT EXISTS (SELECT 1 FROM payments p WHERE p.student_fee_id = sf.student_fee_id)
+          AND EXISTS (SELECT 1 FROM student_fees keep
+                      WHERE keep.student_id = sf.student_id AND keep.fee_type_id = sf.fee_type_id
+                        AND COALESCE(keep.semester, '') = COALESCE(sf.semester, '')
+                        AND COALESCE(keep.academic_year, '') = COALESCE(sf.academic_year, '')
+                        AND keep.student_fee_id <> sf.student_fee_id
+                        AND (keep.student_fee_id < sf.student_fee_id
+                             OR EXISTS (SELECT 1 FROM payments kp WHERE kp.student_fee_id = keep.student_fee_id)))
+    ) duplicates
+);
+
+DELETE FROM student_fees WHERE student_fee_id IN (
+    SELECT student_fee_id FROM (
+        SELECT DISTINCT sf.student_fee_id FROM student_fees sf
+        WHERE NOT EXISTS (SELECT 1 FROM payments p WHERE p.student_fee_id = sf.student_fee_id)
+          AND EXISTS (SELECT 1 FROM student_fees keep
+                      WHERE keep.student_id = sf.student_id AND keep.fee_type_id = sf.fee_type_id
+                        AND COALESCE(keep.semester, '') = COALESCE(sf.semester, '')
+                        AND COALESCE(keep.academic_year, '') = COALESCE(sf.academic_year, '')
+                        AND keep.student_fee_id <> sf.student_fee_id
+                        AND (keep.student_fee_id < sf.student_fee_id
+                             OR EXISTS (SELECT 1 FROM payments kp WHERE kp.student_fee_id = keep.student_fee_id)))
+    ) duplicates
+);
+
+-- existsByStudentAndFeeTypeAndSemesterAndAcademicYear, existsByStudentAndFeeType. Yearly and
+-- one-time fees have no semester, and NULLs never clash in a unique key, hence the COALESCE.
+CREATE UNIQUE INDEX uk_student_fees_term
+    ON student_fees (student_id, fee_type_id, (COALESCE(semester, '')), (COALESCE(academic_year, '')));
+
+-- findByStudentAndSemesterAndAcademicYear, findByStudentAndStatus
+CREATE INDEX idx_student_fees_student_term ON student_fees (student_id, semester, academic_year, status);
+
+-- findBySemesterAndAcademicYearAndStatus, findUnalertedRows and the term counts are served by
+-- idx_student_fees_term_status, which Hibernate creates from the entity mapping.
+
+-- Alerts: one per fee and sender (existsByStudentAndStudentFeeAndSentBy). The fee fixes the
+-- student, so the key leaves it out. Later copies of an alert go.
+DELETE a FROM fee_alerts a
+JOIN fee_alerts earlier ON earlier.student_fee_id = a.student_fee_id AND earlier.sent_by = a.sent_by
+    AND earlier.alert_id < a.alert_id;
+
+-- existsByStudentAndStudentFeeAndSentBy, findAlertedFeeIds, findBySentBy
+CREATE UNIQUE INDEX uk_fee_alerts_sender_fee ON fee_alerts (sent_by, student_fee_id);
+
+-- findSentAlertRows, newest first
+CREATE INDEX idx_fee_alerts_sender_date ON fee_alerts (sent_by, alert_date);
+
+-- findByStudent, findByStudentAndStudentFee, findStudentAlertRows, newest first
+CREATE INDEX idx_fee_alerts_student_date ON fee_alerts (student_id, alert_date);
+
+-- findByStudent, findRowsByStudentAndTerm, newest first
+CREATE INDEX idx_payments_student_date ON payments (student_id, payment_date);
@@ -0,0 +1,11 @@
+-- Fee alerts get a read time (NULL while unread) and every student an unread counter, both added
+-- by the schema update before this runs. Alerts sent before the inbox tracked reads count as
+-- unread; the counters start from them.
+INSERT INTO unread_alert_counts (student_id, unread_count, updated_at)
+SELECT student_id, COUNT(*), NOW() FROM fee_alerts WHERE read_at IS NULL GROUP BY student_id
+ON DUPLICATE KEY UPDATE unread_count = VALUES(unread_count), updated_at = VALUES(updated_at);
+
+-- The inboxes page on (alert_date, alert_id), newest first. InnoDB appends the primary key to every
+-- secondary index, so idx_fee_alerts_student_date and idx_fee_alerts_sender_date from V3 already
+-- order by both and serve the keyset queries.
+
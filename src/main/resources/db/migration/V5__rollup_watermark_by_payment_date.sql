@@ -0,0 +1,11 @@
+-- The payment rollups now read payments in (payment_date, payment_id) order, past a watermark that
+-- keeps both; last_date is added by the schema update before this runs. The id-only watermark may
+-- have skipped payments whose pooled ids came from an older block, so the rollups are cleared and
+-- the next scheduled run aggregates the whole history again.
+DELETE FROM payment_daily_rollups;
+
+UPDATE rollup_watermarks SET last_date = '1970-01-01 00:00:00', last_id = 0, updated_at = NOW()
+WHERE rollup_name = 'payments';
+
+-- Rollup chunks, in date then id order. InnoDB appends the primary key, which breaks date ties.
+CREATE INDEX idx_payments_date ON payments (payment_date);
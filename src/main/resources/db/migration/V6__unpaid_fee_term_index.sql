@@ -0,0 +1,10 @@
+-- The pending fees grid, its count and the bulk alert flag now take PENDING and OVERDUE fees alike.
+-- With alerted ahead of status, the unalerted unpaid fees of a term are one range of the index and
+-- the status list is checked inside it. findBySemesterAndAcademicYearAndStatusIn uses the term prefix.
+-- The entity mapping declares the new column order, so a schema Hibernate has just created gets
+-- the same index back.
+DROP INDEX idx_student_fees_term_status ON student_fees;
+CREATE INDEX idx_student_fees_term_status ON student_fees (semester, academic_year, alerted, status);
+
+-- idx_student_fees_student_term from V3 leads with the student and term, which every query on it
+-- fixes, and needs no change.
@@ -0,0 +1,24 @@
+-- V3 removed duplicate unpaid fees without taking them off the balance ledger, so the students
+-- who had copies show too much outstanding until a balance rebuild runs. Rebuild every ledger row
+-- from the fees now, the same totals StudentBalanceService.rebuild() computes.
+INSERT INTO student_balances (student_id, pending_amount, pending_count, overdue_amount, overdue_count,
+                              paid_amount, paid_count, updated_at)
+SELECT student_id,
+       SUM(CASE WHEN status = 'PENDING' THEN amount ELSE 0 END),
+       SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'OVERDUE' THEN amount ELSE 0 END),
+       SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'PAID' THEN amount ELSE 0 END),
+       SUM(CASE WHEN status = 'PAID' THEN 1 ELSE 0 END),
+       NOW()
+FROM student_fees
+GROUP BY student_id
+ON DUPLICATE KEY UPDATE pending_amount = VALUES(pending_amount), pending_count = VALUES(pending_count),
+    overdue_amount = VALUES(overdue_amount), overdue_count = VALUES(overdue_count),
+    paid_amount = VALUES(paid_amount), paid_count = VALUES(paid_count), updated_at = VALUES(updated_at);
+
+-- Students whose only fees were duplicates have none left
+UPDATE student_balances b
+SET pending_amount = 0, pending_count = 0, overdue_amount = 0, overdue_count = 0, paid_amount = 0,
+    paid_count = 0, updated_at = NOW()
+WHERE NOT EXISTS (SELECT 1 FROM student_fees f WHERE f.student_id = b.student_id);
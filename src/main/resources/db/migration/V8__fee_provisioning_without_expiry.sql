@@ -0,0 +1,16 @@
+-- A provisioning watermark no longer expires at the end of the day it was written; it stays until
+-- the fee types change. Watermarks written so far may cover terms with fee types that weren't due
+-- yet, so the table is recreated empty, without provisioned_on, and each term is provisioned again
+-- on its next view or rollover. The schema update may already have created the table without the
+-- column, which is why it is recreated rather than altered.
+DROP TABLE fee_provisioning;
+
+CREATE TABLE fee_provisioning (
+    provisioning_id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    semester VARCHAR(255) NOT NULL,
+    academic_year VARCHAR(255) NOT NULL,
+    updated_at DATETIME(6),
+    PRIMARY KEY (provisioning_id),
+    CONSTRAINT uk_fee_provisioning_term UNIQUE (student_id, semester, academic_year)
+);
@@ -0,0 +1,194 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import com.smartcampusmng.campusmanager.dto.AlertCursor;
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.AlertInbox;
+import com.smartcampusmng.campusmanager.service.FeeAlertService;
+import com.smartcampusmng.campusmanager.service.PaymentService;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Checks that sent alerts reach the {@link AlertInbox} subscribers of their student only, only
+ * after the sending transaction has committed, and not at all when it rolls back. Then walks both
+ * inboxes in keyset pages, where bulk sends share an alert date, and checks that the unread counter
+ * matches the unread alerts after sends, reads, deletes and a payment. Exits with status 1 if any
+ * check fails.
+ *
+ * <p>{@code mvn -Pperf test-compile exec:exec -Dperf.main=com.smartcampusmng.campusmanager.perf.AlertInboxCheck}
+ */
+public final class AlertInboxCheck {
+    private static final int PAGE_SIZE = 4;
+
+    private final List<String> failures = new ArrayList<>();
+
+    private AlertInboxCheck() {
+    }
+
+    public static void main(String[] args) {
+        boolean passed;
+        try {
+            passed = new AlertInboxCheck().run(PerfContext.start());
+        } finally {
+            PerfContext.stop();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run(ConfigurableApplicationContext context) {
+        PerfDataset dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        List<User> students = dataset.createStudents(3);
+        List<User> staffList = dataset.createStaff(5);
+        User staff = staffList.get(0);
+        dataset.provisionTerm();
+
+        AlertInbox inbox = context.getBean(AlertInbox.class);
+        FeeAlertService feeAlertService = context.getBean(FeeAlertService.class);
+        StudentFeeService studentFeeService = context.getBean(StudentFeeService.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        User first = students.get(0);
+        User second = students.get(1);
+        List<StudentFee> firstFees = studentFeeService.getFeesForStudentAndSemester(first,
+            PerfContext.semester(), PerfContext.academicYear());
+        List<StudentFee> secondFees = studentFeeService.getFeesForStudentAndSemester(second,
+            PerfContext.semester(), PerfContext.academicYear());
+
+        List<StudentAlertRow> firstInbox = new CopyOnWriteArrayList<>();
+        List<StudentAlertRow> secondInbox = new CopyOnWriteArrayList<>();
+        Runnable unsubscribeFirst = inbox.subscribe(first.getUserId(), firstInbox::add);
+        Runnable unsubscribeSecond = inbox.subscribe(second.getUserId(), secondInbox::add);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            feeAlertService.createAlert(first, firstFees.get(0), staff, "Single");
+            check("nothing delivered before the commit", firstInbox.isEmpty());
+        });
+        check("single alert delivered after the commit", firstInbox.size() == 1
+            && "Single".equals(firstInbox.get(0).message())
+            && firstFees.get(0).getFeeType().getFeeName().equals(firstInbox.get(0).feeName()));
+        check("other students get nothing", secondInbox.isEmpty());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            feeAlertService.createAlert(first, firstFees.get(1), staff, "Rolled back");
+            status.setRollbackOnly();
+        });
+        check("rolled back alert is not delivered", firstInbox.size() == 1);
+
+        feeAlertService.createAlerts(List.of(firstFees.get(2), secondFees.get(0), secondFees.get(1)), staff, "Bulk");
+        check("bulk alerts delivered to each student", firstInbox.size() == 2 && secondInbox.size() == 2);
+        check("bulk alerts carry their ids", secondInbox.stream().allMatch(row -> row.alertId() != null));
+
+        unsubscribeFirst.run();
+        feeAlertService.createAlert(first, firstFees.get(1), staff, "Unsubscribed");
+        check("removed subscription gets nothing", firstInbox.size() == 2);
+        unsubscribeSecond.run();
+
+        // Every sender alerts the third student about every fee, one bulk send each, so the alerts
+        // of a send share their alert date and only the id orders them
+        User third = students.get(2);
+        List<StudentFee> thirdFees = studentFeeService.getFeesForStudentAndSemester(third,
+            PerfContext.semester(), PerfContext.academicYear());
+        for (User sender : staffList) {
+            feeAlertService.createAlerts(thirdFees, sender, "Paged");
+        }
+        List<StudentAlertRow> thirdInbox = walk(
+            before -> feeAlertService.getStudentAlertRows(third, before, PAGE_SIZE),
+            row -> new AlertCursor(row.alertDate(), row.alertId()));
+        checkPaged("student inbox", thirdInbox.stream().map(StudentAlertRow::alertId).toList(),
+            thirdInbox.stream().map(StudentAlertRow::alertDate).toList(), staffList.size() * thirdFees.size());
+        List<SentAlertRow> sent = walk(
+            before -> feeAlertService.getSentAlertRows(staff, before, PAGE_SIZE),
+            row -> new AlertCursor(row.alertDate(), row.alertId()));
+        JdbcTemplate jdbc = dataset.jdbc();
+        Integer sentByStaff = jdbc.queryForObject("SELECT COUNT(*) FROM fee_alerts WHERE sent_by = ?", Integer.class,
+            staff.getUserId());
+        checkPaged("sent alerts", sent.stream().map(SentAlertRow::alertId).toList(),
+            sent.stream().map(SentAlertRow::alertDate).toList(), sentByStaff == null ? -1 : sentByStaff);
+
+        checkUnread("unread counter counts sent alerts", jdbc, feeAlertService, third, thirdInbox.size());
+        feeAlertService.markRead(third, List.of(thirdInbox.get(0).alertId(), thirdInbox.get(1).alertId()));
+        checkUnread("reading two alerts takes two off", jdbc, feeAlertService, third, thirdInbox.size() - 2);
+        feeAlertService.markRead(third, List.of(thirdInbox.get(0).alertId()));
+        checkUnread("reading an alert again changes nothing", jdbc, feeAlertService, third, thirdInbox.size() - 2);
+        feeAlertService.markRead(first, List.of(thirdInbox.get(2).alertId()));
+        checkUnread("another student can't read the alert", jdbc, feeAlertService, third, thirdInbox.size() - 2);
+        check("inbox rows show the read", feeAlertService.getStudentAlertRows(third, null, PAGE_SIZE).stream()
+            .filter(row -> !row.unread()).count() == 2);
+
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        StudentFee paid = thirdFees.get(0);
+        long paidUnread = countUnreadOfFee(jdbc, paid);
+        paymentService.processPayment(paid, third, staff, Payment.PaymentMethod.CASH, "INBOX-CHECK", null);
+        checkUnread("paying a fee drops its unread alerts", jdbc, feeAlertService, third,
+            thirdInbox.size() - 2 - (int) paidUnread);
+
+        feeAlertService.markAllRead(third);
+        checkUnread("reading all clears the counter", jdbc, feeAlertService, third, 0);
+        checkUnread("counter of the first student matches", jdbc, feeAlertService, first,
+            feeAlertService.getStudentAlertRows(first, null, 100).size());
+
+        System.out.println();
+        if (failures.isEmpty()) {
+            System.out.println("Alert inbox: all checks passed");
+            return true;
+        }
+        failures.forEach(failure -> System.out.println("FAILED " + failure));
+        return false;
+    }
+
+    // Reads pages until one comes back short
+    private static <T> List<T> walk(Function<AlertCursor, List<T>> page, Function<T, AlertCursor> cursor) {
+        List<T> rows = new ArrayList<>();
+        List<T> next = page.apply(null);
+        rows.addAll(next);
+        while (next.size() == PAGE_SIZE) {
+            next = page.apply(cursor.apply(rows.get(rows.size() - 1)));
+            rows.addAll(next);
+        }
+        return rows;
+    }
+
+    private void checkPaged(String inbox, List<Long> ids, List<LocalDateTime> dates, int expected) {
+        check(inbox + " pages cover every alert once", ids.size() == expected && new HashSet<>(ids).size() == expected);
+        boolean newestFirst = true;
+        for (int i = 1; i < ids.size(); i++) {
+            int byDate = dates.get(i - 1).compareTo(dates.get(i));
+            newestFirst &= byDate > 0 || (byDate == 0 && ids.get(i - 1) > ids.get(i));
+        }
+        check(inbox + " pages run newest first", newestFirst);
+    }
+
+    private void checkUnread(String name, JdbcTemplate jdbc, FeeAlertService feeAlertService, User student,
+                             int expected) {
+        Integer unread = jdbc.queryForObject("SELECT COUNT(*) FROM fee_alerts WHERE student_id = ? AND read_at IS NULL",
+            Integer.class, student.getUserId());
+        int counter = feeAlertService.getUnreadCount(student.getUserId());
+        check(name + " (" + counter + ")", counter == expected && unread != null && unread == expected);
+    }
+
+    private static long countUnreadOfFee(JdbcTemplate jdbc, StudentFee fee) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM fee_alerts WHERE student_fee_id = ? AND read_at IS NULL",
+            Long.class, fee.getStudentFeeId());
+    }
+
+    private void check(String name, boolean passed) {
+        System.out.printf("%-4s %s%n", passed ? "ok" : "FAIL", name);
+        if (!passed) {
+            failures.add(name);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.PaymentService;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Simulates the first days of term: many students opening the payment page, which provisions
+ * their fees on the first visit, and paying one of their pending fees, all at the same time.
+ * Reports throughput and latency percentiles per operation, failures by kind (deadlocks and lock
+ * timeouts separately) and the duplicate fees and payments left behind.
+ *
+ * <p>Options: {@code --students=2000 --threads=50 --duration=60 --pay-ratio=0.5 --think-ms=0}.
+ * Any other {@code --name=value} argument goes to Spring, e.g. to run against a local MySQL:
+ * {@code --spring.datasource.url=jdbc:mysql://localhost:3306/campus_perf --spring.datasource.driver-class-name=com.mysql.cj.jdbc.Driver
+ * --spring.datasource.username=... --spring.datasource.password=... --spring.jpa.hibernate.ddl-auto=update
+ * --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect
+ * --reset-database=true}. The data set is wiped before the run, so only point it at a scratch schema.
+ */
+public final class PaymentRushLoadTest {
+
+    private static final String DUPLICATE_TERM_FEES =
+        "SELECT COALESCE(SUM(c - 1), 0) FROM (SELECT COUNT(*) AS c FROM student_fees sf " +
+        "JOIN fee_types ft ON ft.fee_type_id = sf.fee_type_id WHERE ft.frequency <> 'ONE_TIME' " +
+        "GROUP BY sf.student_id, sf.fee_type_id, COALESCE(sf.semester, ''), sf.academic_year " +
+        "HAVING COUNT(*) > 1) d";
+
+    private static final String DUPLICATE_ONE_TIME_FEES =
+        "SELECT COALESCE(SUM(c - 1), 0) FROM (SELECT COUNT(*) AS c FROM student_fees sf " +
+        "JOIN fee_types ft ON ft.fee_type_id = sf.fee_type_id WHERE ft.frequency = 'ONE_TIME' " +
+        "GROUP BY sf.student_id, sf.fee_type_id HAVING COUNT(*) > 1) d";
+
+    private static final String DUPLICATE_PAYMENTS =
+        "SELECT COALESCE(SUM(c - 1), 0) FROM (SELECT COUNT(*) AS c FROM payments " +
+        "GROUP BY student_fee_id HAVING COUNT(*) > 1) d";
+
+    private static final String OPEN_PAYMENT_PAGE = "openPaymentPage";
+    private static final String PROCESS_PAYMENT = "processPayment";
+
+    private final int students;
+    private final int threads;
+    private final int durationSeconds;
+    private final double payRatio;
+    private final int thinkMillis;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+    private PaymentRushLoadTest(Map<String, String> options) {
+        this.students = Integer.parseInt(options.getOrDefault("students", "2000"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "50"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        this.payRatio = Double.parseDouble(options.getOrDefault("pay-ratio", "0.5"));
+        this.thinkMillis = Integer.parseInt(options.getOrDefault("think-ms", "0"));
+        operations.put(OPEN_PAYMENT_PAGE, new Operation());
+        operations.put(PROCESS_PAYMENT, new Operation());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new TreeMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            String name = arg.startsWith("--") && arg.contains("=") ? arg.substring(2, arg.indexOf('=')) : null;
+            if (name != null && !name.contains(".")) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else {
+                springArgs.add(arg);
+            }
+        }
+
+        try {
+            ConfigurableApplicationContext context = PerfContext.start(springArgs.toArray(new String[0]));
+            String url = context.getEnvironment().getProperty("spring.datasource.url", "");
+            if (!url.startsWith("jdbc:h2:") && !Boolean.parseBoolean(options.get("reset-database"))) {
+                throw new RuntimeException("The load test wipes " + url + "; pass --reset-database=true to allow it");
+            }
+            new PaymentRushLoadTest(options).run(context);
+        } finally {
+            PerfContext.stop();
+        }
+    }
+
+    private void run(ConfigurableApplicationContext context) throws InterruptedException {
+        PerfDataset dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        List<User> studentList = dataset.createStudents(students);
+        User staff = dataset.createStaff(1).get(0);
+
+        StudentFeeService studentFeeService = context.getBean(StudentFeeService.class);
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        String semester = PerfContext.semester();
+        String academicYear = PerfContext.academicYear();
+
+        System.out.printf("Payment rush: %d students, %d concurrent sessions, %d s, pay ratio %.2f, pool size %s%n",
+            students, threads, durationSeconds, payRatio, poolSize(context.getBean(DataSource.class)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong references = new AtomicLong();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                awaitQuietly(start);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    User student = studentList.get(random.nextInt(studentList.size()));
+                    List<StudentFee> fees = time(OPEN_PAYMENT_PAGE,
+                        () -> studentFeeService.getFeesForStudentAndSemester(student, semester, academicYear));
+                    List<StudentFee> pending = fees == null ? List.of() : fees.stream()
+                        .filter(fee -> fee.getStatus() == StudentFee.PaymentStatus.PENDING)
+                        .toList();
+                    if (!pending.isEmpty() && random.nextDouble() < payRatio) {
+                        StudentFee fee = pending.get(random.nextInt(pending.size()));
+                        time(PROCESS_PAYMENT, () -> paymentService.processPayment(fee, student, staff,
+                            Payment.PaymentMethod.ONLINE_PAYMENT, "LOAD-" + references.incrementAndGet(),
+                            UUID.randomUUID().toString()));
+                    }
+                    if (thinkMillis > 0) {
+                        sleepQuietly(thinkMillis);
+                    }
+                }
+            });
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(durationSeconds + 300L, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        report(elapsedSeconds, dataset.jdbc());
+    }
+
+    private <T> T time(String operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            operations.get(operation).succeeded(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            operations.get(operation).failed(System.nanoTime() - start, classify(e));
+            return null;
+        }
+    }
+
+    private void report(double elapsedSeconds, JdbcTemplate jdbcTemplate) {
+        System.out.printf("%n%-16s %10s %10s %10s %10s %10s %10s %10s%n",
+            "operation", "ok", "failed", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        operations.forEach((name, operation) -> {
+            long[] latencies = operation.latencies();
+            System.out.printf("%-16s %10d %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                name, operation.ok.get(), operation.failed.get(), operation.ok.get() / elapsedSeconds,
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                percentile(latencies, 100));
+        });
+
+        System.out.println();
+        operations.forEach((name, operation) -> operation.failures.forEach((kind, count) ->
+            System.out.printf("failures %-16s %-40s %d%n", name, kind, count.get())));
+
+        System.out.println();
+        System.out.printf("duplicate term fees      %d%n", jdbcTemplate.queryForObject(DUPLICATE_TERM_FEES, Long.class));
+        System.out.printf("duplicate one-time fees  %d%n", jdbcTemplate.queryForObject(DUPLICATE_ONE_TIME_FEES, Long.class));
+        System.out.printf("duplicate payments       %d%n", jdbcTemplate.queryForObject(DUPLICATE_PAYMENTS, Long.class));
+    }
+
+    // Deadlocks and lock wait timeouts are told apart by vendor codes: 1213/1205 on MySQL, 40001/HYT00 on H2
+    static String classify(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException) {
+                if (sqlException.getErrorCode() == 1213 || "40001".equals(sqlException.getSQLState())) {
+                    return "deadlock";
+                }
+                if (sqlException.getErrorCode() == 1205 || "HYT00".equals(sqlException.getSQLState())) {
+                    return "lock wait timeout";
+                }
+            }
+        }
+        return failure.getClass().getSimpleName();
+    }
+
+    private static double percentile(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedNanos.length);
+        return sortedNanos[Math.max(rank - 1, 0)] / 1e6;
+    }
+
+    private static String poolSize(DataSource dataSource) {
+        return dataSource instanceof HikariDataSource hikari ? String.valueOf(hikari.getMaximumPoolSize()) : "n/a";
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Operation {
+        private final AtomicLong ok = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+        private long[] nanos = new long[1024];
+        private int count;
+
+        void succeeded(long elapsedNanos) {
+            ok.incrementAndGet();
+            record(elapsedNanos);
+        }
+
+        void failed(long elapsedNanos, String kind) {
+            failed.incrementAndGet();
+            failures.computeIfAbsent(kind, k -> new AtomicLong()).incrementAndGet();
+            record(elapsedNanos);
+        }
+
+        private synchronized void record(long elapsedNanos) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsedNanos;
+        }
+
+        synchronized long[] latencies() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
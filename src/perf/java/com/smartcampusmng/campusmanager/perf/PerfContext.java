@@ -0,0 +1,106 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One application context per benchmark or load test JVM, backed by an in-memory H2 database in
+ * MySQL mode unless told otherwise.
+ */
+public final class PerfContext {
+    // Passed as command line arguments, which take precedence over application.properties
+    private static final String[] DEFAULTS = {
+        "--spring.datasource.url=jdbc:h2:mem:perf;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "--spring.datasource.driver-class-name=org.h2.Driver",
+        "--spring.datasource.username=sa",
+        "--spring.datasource.password=",
+        "--spring.jpa.hibernate.ddl-auto=create-drop",
+        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "--spring.jpa.show-sql=false",
+        "--spring.jpa.properties.hibernate.format_sql=false",
+        "--logging.level.root=WARN",
+        "--logging.level.org.hibernate=WARN",
+        "--logging.level.org.springframework.security=WARN",
+        "--logging.level.com.vaadin=WARN",
+        "--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF",
+        "--logging.level.org.hibernate.tool.schema=ERROR",
+        "--notifications.notifier=log"
+    };
+
+    private static ConfigurableApplicationContext context;
+
+    private PerfContext() {
+    }
+
+    public static synchronized ConfigurableApplicationContext start() {
+        return start(new String[0]);
+    }
+
+    /**
+     * Starts the context unless it is running already. Arguments of the form {@code --name=value}
+     * replace the defaults, e.g. {@code --spring.datasource.url=jdbc:mysql://localhost/campus_perf}.
+     */
+    public static synchronized ConfigurableApplicationContext start(String... overrides) {
+        return start(PerfApplication.class, overrides);
+    }
+
+    /**
+     * Starts the context from another configuration, one that imports {@link PerfApplication} and
+     * adds to it.
+     */
+    public static synchronized ConfigurableApplicationContext start(Class<?> application, String... overrides) {
+        if (context == null) {
+            Map<String, String> args = new LinkedHashMap<>();
+            for (String arg : DEFAULTS) {
+                put(args, arg);
+            }
+            for (String arg : overrides) {
+                put(args, arg);
+            }
+            // DevTools would relaunch main() with the Spring arguments only
+            System.setProperty("spring.devtools.restart.enabled", "false");
+            context = new SpringApplicationBuilder(application)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args.values().toArray(new String[0]));
+        }
+        return context;
+    }
+
+    private static void put(Map<String, String> args, String arg) {
+        int eq = arg.indexOf('=');
+        args.put(eq < 0 ? arg : arg.substring(0, eq), arg);
+    }
+
+    public static synchronized void stop() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    public static <T> T bean(Class<T> type) {
+        return start().getBean(type);
+    }
+
+    public static PerfDataset dataset() {
+        return new PerfDataset(start());
+    }
+
+    // Same rules as StudentFeeService, so semester fees are due for the benchmark term
+    public static String semester() {
+        return LocalDate.now().getMonthValue() >= 8 ? "First Semester (Aug-Dec)" : "Second Semester (Jan-May)";
+    }
+
+    public static String academicYear() {
+        LocalDate now = LocalDate.now();
+        int year = now.getYear();
+        return now.getMonthValue() >= 8 ? year + "-" + (year + 1) : (year - 1) + "-" + year;
+    }
+}
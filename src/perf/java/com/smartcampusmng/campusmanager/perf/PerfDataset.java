@@ -0,0 +1,150 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import com.smartcampusmng.campusmanager.service.EntityIdAllocator;
+import com.smartcampusmng.campusmanager.service.StudentFeeRolloverService;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds benchmark data sets. Bulk rows go in through JDBC so setting up large data sets
+ * doesn't take longer than the benchmarks themselves.
+ */
+public class PerfDataset {
+    private static final String[] TABLES = {
+        "notification_outbox", "fee_alerts", "unread_alert_counts", "payments", "student_fees", "fee_provisioning",
+        "student_balances", "term_rollovers", "payment_daily_rollups", "rollup_watermarks", "users", "fee_types"
+    };
+
+    private static final String INSERT_PAYMENT =
+        "INSERT INTO payments (payment_id, student_id, student_fee_id, payment_date, amount, payment_method, " +
+        "receipt_number, recorded_by, remarks) VALUES (?, ?, ?, ?, ?, 'CASH', ?, ?, 'seed')";
+
+    private static final String INSERT_USER =
+        "INSERT INTO users (username, password, email, first_name, last_name, role, active, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, TRUE, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FeeTypeRepository feeTypeRepository;
+    private final UserRepository userRepository;
+    private final StudentFeeService studentFeeService;
+    private final StudentFeeRolloverService rolloverService;
+    private final EntityIdAllocator entityIdAllocator;
+    private final TransactionTemplate transactionTemplate;
+
+    PerfDataset(ApplicationContext context) {
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.feeTypeRepository = context.getBean(FeeTypeRepository.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.studentFeeService = context.getBean(StudentFeeService.class);
+        this.rolloverService = context.getBean(StudentFeeRolloverService.class);
+        this.entityIdAllocator = context.getBean(EntityIdAllocator.class);
+        this.transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    public JdbcTemplate jdbc() {
+        return jdbcTemplate;
+    }
+
+    public void clear() {
+        for (String table : TABLES) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    /**
+     * One fee type per frequency, plus a second semester fee.
+     */
+    public void seedFeeTypes() {
+        feeType("Tuition Fee", 50000.0, FeeType.Frequency.SEMESTER);
+        feeType("Library Fee", 1500.0, FeeType.Frequency.SEMESTER);
+        feeType("Hostel Fee", 30000.0, FeeType.Frequency.YEARLY);
+        feeType("Admission Fee", 5000.0, FeeType.Frequency.ONE_TIME);
+        feeType("Transport Fee", 2000.0, FeeType.Frequency.MONTHLY);
+    }
+
+    public List<User> createStudents(int count) {
+        return createUsers("student", count, User.UserRole.STUDENT);
+    }
+
+    public List<User> createStaff(int count) {
+        return createUsers("accounts", count, User.UserRole.ACCOUNTS);
+    }
+
+    /**
+     * Creates the current term's fees for every student.
+     */
+    public void provisionTerm() {
+        provisionTerm(PerfContext.semester(), PerfContext.academicYear());
+    }
+
+    public void provisionTerm(String semester, String academicYear) {
+        rolloverService.rolloverTerm(semester, academicYear);
+    }
+
+    /**
+     * Pays every {@code every}-th fee with a CASH payment recorded by the given user.
+     */
+    public void seedPayments(int every, User recordedBy) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> rows = jdbcTemplate.query(
+                "SELECT student_id, student_fee_id, amount FROM student_fees WHERE MOD(student_fee_id, ?) = 0",
+                (rs, rowNum) -> new Object[] {
+                    entityIdAllocator.nextId(Payment.class), rs.getLong(1), rs.getLong(2), now, rs.getDouble(3),
+                    "SEED-" + rs.getLong(2), recordedBy.getUserId()
+                }, every);
+            jdbcTemplate.batchUpdate(INSERT_PAYMENT, rows);
+            jdbcTemplate.update("UPDATE student_fees SET status = 'PAID' WHERE MOD(student_fee_id, ?) = 0", every);
+        });
+    }
+
+    /**
+     * All fees, loaded with their student and fee type.
+     */
+    public List<StudentFee> loadFees() {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "SELECT student_fee_id FROM student_fees ORDER BY student_fee_id", Long.class);
+        List<StudentFee> fees = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += 1000) {
+            fees.addAll(studentFeeService.getFeesByIds(ids.subList(from, Math.min(from + 1000, ids.size()))));
+        }
+        return fees;
+    }
+
+    private void feeType(String name, Double amount, FeeType.Frequency frequency) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName(name);
+        feeType.setDescription(name);
+        feeType.setAmount(amount);
+        feeType.setFrequency(frequency);
+        feeType.setCreatedAt(LocalDateTime.now());
+        feeType.setUpdatedAt(LocalDateTime.now());
+        feeTypeRepository.save(feeType);
+    }
+
+    private List<User> createUsers(String prefix, int count, User.UserRole role) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = prefix + i;
+            rows.add(new Object[] {
+                username, "not-a-hash", username + "@perf.local", "First" + i, "Last" + i, role.name(), now, now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_USER, rows);
+        return userRepository.findByRole(role);
+    }
+}
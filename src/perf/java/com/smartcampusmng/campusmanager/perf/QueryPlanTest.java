@@ -0,0 +1,217 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import com.smartcampusmng.campusmanager.dto.AlertCursor;
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.migration.MigrationConfig;
+import com.smartcampusmng.campusmanager.repository.FeeAlertRepository;
+import com.smartcampusmng.campusmanager.repository.FeeProvisioningRepository;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.PaymentRepository;
+import com.smartcampusmng.campusmanager.repository.StudentFeeRepository;
+import com.smartcampusmng.campusmanager.service.FeeAlertService;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository finder against a migrated MySQL schema holding a few terms of data,
+ * records the SQL Hibernate sends and runs it again under EXPLAIN. Fails if any plan reads a large
+ * table in full. The schema is migrated with Flyway first, so the check covers the indexes in
+ * {@code db/migration} as well as those in the entity mappings.
+ *
+ * <p>Starts MySQL in a container, so it needs Docker and is left out of ordinary builds by its
+ * tag: {@code mvn -Pperf,mysql-tests test}.
+ */
+@Tag("mysql")
+@Testcontainers
+class QueryPlanTest {
+    private static final int STUDENTS = 2000;
+    private static final int YEARS = 4;
+
+    // Full scans of these are fine: they hold a handful of rows
+    private static final Set<String> LOOKUP_TABLES = Set.of("fee_types");
+
+    // Version 8.0.13 or later, for the functional key parts of V3
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    /**
+     * The perf context plus Flyway, with every connection wrapped so queries can be captured.
+     */
+    @SpringBootConfiguration
+    @Import({PerfApplication.class, MigrationConfig.class})
+    @ImportAutoConfiguration(FlywayAutoConfiguration.class)
+    static class PlanCheckApplication {
+
+        @Bean
+        static BeanPostProcessor capturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementCapture.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    @AfterAll
+    static void stopContext() {
+        PerfContext.stop();
+    }
+
+    @Test
+    void everyFinderUsesAnIndexOnLargeTables() {
+        ConfigurableApplicationContext context = PerfContext.start(PlanCheckApplication.class,
+            "--spring.datasource.url=" + MYSQL.getJdbcUrl(),
+            "--spring.datasource.driver-class-name=" + MYSQL.getDriverClassName(),
+            "--spring.datasource.username=" + MYSQL.getUsername(),
+            "--spring.datasource.password=" + MYSQL.getPassword(),
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect");
+
+        assertThat(run(context)).as("finders that read a large table in full").isEmpty();
+    }
+
+    private List<String> run(ConfigurableApplicationContext context) {
+        PerfDataset dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        List<User> studentList = dataset.createStudents(STUDENTS);
+        List<User> staff = dataset.createStaff(5);
+        int startYear = LocalDate.now().getMonthValue() >= 8 ? LocalDate.now().getYear() : LocalDate.now().getYear() - 1;
+        for (int year = startYear - YEARS + 1; year < startYear; year++) {
+            dataset.provisionTerm(PerfContext.semester(), year + "-" + (year + 1));
+        }
+        dataset.provisionTerm();
+        dataset.seedPayments(3, staff.get(0));
+
+        List<StudentFee> fees = dataset.loadFees();
+        FeeAlertService feeAlertService = context.getBean(FeeAlertService.class);
+        for (int i = 0; i < staff.size(); i++) {
+            List<StudentFee> alerted = new ArrayList<>();
+            for (int j = i; j < fees.size(); j += 7) {
+                if (fees.get(j).getStatus() != StudentFee.PaymentStatus.PAID) {
+                    alerted.add(fees.get(j));
+                }
+            }
+            feeAlertService.createAlerts(alerted, staff.get(i), "Reminder");
+        }
+
+        JdbcTemplate jdbcTemplate = dataset.jdbc();
+        jdbcTemplate.execute("ANALYZE TABLE users, student_fees, payments, fee_alerts, fee_provisioning");
+
+        StudentFeeRepository studentFees = context.getBean(StudentFeeRepository.class);
+        FeeAlertRepository alerts = context.getBean(FeeAlertRepository.class);
+        PaymentRepository payments = context.getBean(PaymentRepository.class);
+        FeeProvisioningRepository provisioning = context.getBean(FeeProvisioningRepository.class);
+        FeeType feeType = context.getBean(FeeTypeRepository.class).findAll().get(0);
+        User student = studentList.get(studentList.size() / 2);
+        User sender = staff.get(staff.size() - 1);
+        StudentFee fee = fees.get(fees.size() / 2);
+        List<Long> feeIds = fees.subList(0, 20).stream().map(StudentFee::getStudentFeeId).toList();
+        String semester = PerfContext.semester();
+        String academicYear = PerfContext.academicYear();
+        StudentFee.PaymentStatus pending = StudentFee.PaymentStatus.PENDING;
+        Set<StudentFee.PaymentStatus> unpaid = StudentFeeService.UNPAID;
+        // Keyset pages start after a row of the first page, as the inboxes' "Load Older Alerts" does
+        SentAlertRow sentRow = alerts.findSentAlertRows(sender, PageRequest.of(0, 50)).get(0);
+        AlertCursor sentCursor = new AlertCursor(sentRow.alertDate(), sentRow.alertId());
+        StudentAlertRow studentRow = alerts.findStudentAlertRows(student, PageRequest.of(0, 50)).get(0);
+        AlertCursor studentCursor = new AlertCursor(studentRow.alertDate(), studentRow.alertId());
+
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+        finders.put("StudentFee.findByStudentAndStatus", () -> studentFees.findByStudentAndStatus(student, pending));
+        finders.put("StudentFee.findByStudentAndSemesterAndAcademicYear",
+            () -> studentFees.findByStudentAndSemesterAndAcademicYear(student, semester, academicYear));
+        finders.put("StudentFee.findTermFees", () -> studentFees.findTermFees(student, semester, academicYear));
+        finders.put("StudentFee.existsByStudentAndFeeType", () -> studentFees.existsByStudentAndFeeType(student, feeType));
+        finders.put("StudentFee.existsByStudentAndFeeTypeAndSemesterAndAcademicYear",
+            () -> studentFees.existsByStudentAndFeeTypeAndSemesterAndAcademicYear(student, feeType, semester, academicYear));
+        finders.put("StudentFee.findBySemesterAndAcademicYearAndStatusIn",
+            () -> studentFees.findBySemesterAndAcademicYearAndStatusIn(semester, academicYear, unpaid));
+        finders.put("StudentFee.findUnalertedRows",
+            () -> studentFees.findUnalertedRows(semester, academicYear, unpaid, PageRequest.of(0, 50)));
+        finders.put("StudentFee.countBySemesterAndAcademicYearAndStatusInAndAlertedFalse",
+            () -> studentFees.countBySemesterAndAcademicYearAndStatusInAndAlertedFalse(semester, academicYear, unpaid));
+        finders.put("StudentFee.findByStudentFeeIdIn", () -> studentFees.findByStudentFeeIdIn(feeIds));
+        finders.put("FeeAlert.findByStudentAndStudentFee", () -> alerts.findByStudentAndStudentFee(fee.getStudent(), fee));
+        finders.put("FeeAlert.existsByStudentAndStudentFeeAndSentBy",
+            () -> alerts.existsByStudentAndStudentFeeAndSentBy(fee.getStudent(), fee, sender));
+        finders.put("FeeAlert.findSentAlertRows", () -> alerts.findSentAlertRows(sender, PageRequest.of(0, 50)));
+        finders.put("FeeAlert.findSentAlertRowsBefore", () -> alerts.findSentAlertRowsBefore(sender,
+            sentCursor.alertDate(), sentCursor.alertId(), PageRequest.of(0, 50)));
+        finders.put("FeeAlert.findStudentAlertRows", () -> alerts.findStudentAlertRows(student, PageRequest.of(0, 50)));
+        finders.put("FeeAlert.findStudentAlertRowsBefore", () -> alerts.findStudentAlertRowsBefore(student,
+            studentCursor.alertDate(), studentCursor.alertId(), PageRequest.of(0, 50)));
+        finders.put("FeeAlert.findAlertedFeeIds", () -> alerts.findAlertedFeeIds(sender, feeIds));
+        finders.put("Payment.findByStudent", () -> payments.findByStudent(student));
+        finders.put("Payment.findRowsByStudentAndTerm",
+            () -> payments.findRowsByStudentAndTerm(student, semester, academicYear));
+        finders.put("Payment.findRowsByTermAfter",
+            () -> payments.findRowsByTermAfter(semester, academicYear, 0L, PageRequest.of(0, 50)));
+        finders.put("Payment.findFirstPaymentsForFees", () -> payments.findFirstPaymentsForFees(feeIds));
+        finders.put("Payment.findByIdempotencyKeyIn", () -> payments.findByIdempotencyKeyIn(List.of("missing")));
+        finders.put("Payment.searchRows",
+            () -> payments.searchRows(student.getUsername(), student.getUserId(), PageRequest.of(0, 50)));
+        finders.put("FeeProvisioning.existsByStudentIdAndSemesterAndAcademicYear",
+            () -> provisioning.existsByStudentIdAndSemesterAndAcademicYear(student.getUserId(), semester, academicYear));
+
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Runnable> finder : finders.entrySet()) {
+            List<StatementCapture.CapturedQuery> queries = StatementCapture.capture(
+                () -> transactionTemplate.executeWithoutResult(status -> finder.getValue().run()));
+            System.out.printf("%n%s%n", finder.getKey());
+            for (StatementCapture.CapturedQuery query : queries) {
+                explain(jdbcTemplate, query, finder.getKey(), failures);
+            }
+        }
+
+        return failures;
+    }
+
+    private void explain(JdbcTemplate jdbcTemplate, StatementCapture.CapturedQuery query, String finder,
+                         List<String> failures) {
+        jdbcTemplate.query("EXPLAIN " + query.sql(), statement -> {
+            for (int i = 0; i < query.parameters().size(); i++) {
+                statement.setObject(i + 1, query.parameters().get(i));
+            }
+        }, rs -> {
+            String table = rs.getString("table");
+            String type = rs.getString("type");
+            System.out.printf("  %-22s %-8s %-40s %10s  %s%n", table, type, rs.getString("key"),
+                rs.getString("rows"), rs.getString("Extra"));
+            if ("ALL".equals(type) && table != null && !table.startsWith("<") && !LOOKUP_TABLES.contains(table)) {
+                failures.add(finder + " reads " + table + " in full: " + query.sql());
+            }
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.PaymentService;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import com.vaadin.flow.server.VaadinSession;
+import com.vaadin.flow.server.WrappedHttpSession;
+import com.vaadin.flow.server.WrappedSession;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Checks the read replica routing against two in-memory H2 databases. The replica is a copy of
+ * the primary taken after seeding, so anything written later is missing from it, as if it lagged
+ * behind for the whole run. Read-only service calls must see the copy, writes, the lookups after a
+ * payment conflict and the reads of a session that has just paid must see the primary. Exits with
+ * status 1 if any check fails.
+ *
+ * <p>{@code mvn -Pperf test-compile exec:exec -Dperf.main=com.smartcampusmng.campusmanager.perf.ReplicaRoutingCheck}
+ */
+public final class ReplicaRoutingCheck {
+
+    private static final String[] REPLICA = {
+        "--datasource.replica.jdbc-url=jdbc:h2:mem:replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "--datasource.replica.driver-class-name=org.h2.Driver",
+        "--datasource.replica.username=sa",
+        "--datasource.replica.password=",
+        "--datasource.replica.read-your-writes-seconds=2"
+    };
+
+    private final List<String> failures = new ArrayList<>();
+
+    private ReplicaRoutingCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed;
+        try {
+            passed = new ReplicaRoutingCheck().run(PerfContext.start(REPLICA));
+        } finally {
+            PerfContext.stop();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private boolean run(ConfigurableApplicationContext context) throws Exception {
+        PerfDataset dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        List<User> students = dataset.createStudents(3);
+        User staff = dataset.createStaff(1).get(0);
+        // The rollover reads the fee types through a read-only repository call, so from the replica
+        JdbcTemplate replica = new JdbcTemplate(context.getBean("replicaDataSource", DataSource.class));
+        copyPrimaryToReplica(dataset.jdbc(), replica);
+        dataset.provisionTerm();
+        copyPrimaryToReplica(dataset.jdbc(), replica);
+
+        PaymentService paymentService = context.getBean(PaymentService.class);
+        StudentFeeService studentFeeService = context.getBean(StudentFeeService.class);
+        String semester = PerfContext.semester();
+        String academicYear = PerfContext.academicYear();
+        User first = students.get(0);
+        User second = students.get(1);
+        IntSupplier firstPayments = () -> paymentService
+            .getPaymentRowsForStudentAndSemester(first, semester, academicYear).size();
+        IntSupplier secondPayments = () -> paymentService
+            .getPaymentRowsForStudentAndSemester(second, semester, academicYear).size();
+
+        // Without a session nothing is pinned: the payment goes to the primary, the read to the replica
+        pay(paymentService, studentFeeService, first, staff, semester, academicYear);
+        check("payment written to the primary", countPayments(dataset.jdbc(), first) == 1);
+        check("read-only call reads the replica", firstPayments.getAsInt() == 0);
+        check("fees loaded for payment come from the primary",
+            studentFeeService.getFeesForStudentAndSemester(first, semester, academicYear).stream()
+                .anyMatch(fee -> fee.getStatus() == StudentFee.PaymentStatus.PAID));
+
+        TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        // A payment submitted twice, whose first submission the replica hasn't seen: the second one
+        // conflicts and has to find the first on the primary rather than retry with the replica's copy
+        StudentFee retried = studentFeeService.getFeesForStudentAndSemester(first, semester, academicYear).stream()
+            .filter(fee -> fee.getStatus() != StudentFee.PaymentStatus.PAID)
+            .findFirst().orElseThrow();
+        Payment firstSubmit = paymentService.processPayment(retried, first, staff, Payment.PaymentMethod.CASH,
+            "RETRY", "retry-key");
+        StudentFee stale = readOnly.execute(status ->
+            studentFeeService.getFeesByIds(List.of(retried.getStudentFeeId())).get(0));
+        check("replica still shows the retried fee unpaid", stale.getStatus() != StudentFee.PaymentStatus.PAID);
+        Payment secondSubmit = paymentService.processPayment(stale, first, staff, Payment.PaymentMethod.CASH,
+            "RETRY", "retry-key");
+        check("resubmitted payment returns the one on the primary",
+            secondSubmit.getPaymentId().equals(firstSubmit.getPaymentId()) && countPayments(dataset.jdbc(), first) == 2);
+
+        VaadinSession payer = session();
+        VaadinSession other = session();
+        try {
+            VaadinSession.setCurrent(payer);
+            pay(paymentService, studentFeeService, second, staff, semester, academicYear);
+            check("session that paid reads its payment from the primary", secondPayments.getAsInt() == 1);
+
+            VaadinSession.setCurrent(other);
+            check("another session still reads the replica", secondPayments.getAsInt() == 0);
+
+            VaadinSession.setCurrent(payer);
+            Thread.sleep(2500);
+            check("session that paid reads the replica again after the window", secondPayments.getAsInt() == 0);
+        } finally {
+            VaadinSession.setCurrent(null);
+        }
+
+        System.out.println();
+        if (failures.isEmpty()) {
+            System.out.println("Replica routing: all checks passed");
+            return true;
+        }
+        failures.forEach(failure -> System.out.println("FAILED " + failure));
+        return false;
+    }
+
+    private void pay(PaymentService paymentService, StudentFeeService studentFeeService, User student, User staff,
+                     String semester, String academicYear) {
+        StudentFee fee = studentFeeService.getFeesForStudentAndSemester(student, semester, academicYear).get(0);
+        paymentService.processPayment(fee, student, staff, Payment.PaymentMethod.CASH, "CHECK-" + student.getUserId(),
+            null);
+    }
+
+    private void check(String name, boolean passed) {
+        System.out.printf("%-4s %s%n", passed ? "ok" : "FAIL", name);
+        if (!passed) {
+            failures.add(name);
+        }
+    }
+
+    private static long countPayments(JdbcTemplate primary, User student) {
+        return primary.queryForObject("SELECT COUNT(*) FROM payments WHERE student_id = ?", Long.class,
+            student.getUserId());
+    }
+
+    // Stands in for replication: a snapshot of the primary that never catches up
+    private static void copyPrimaryToReplica(JdbcTemplate primary, JdbcTemplate replica) throws Exception {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            primary.execute("SCRIPT TO '" + script + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    // Only the HTTP session behind it is used, so no Vaadin service is needed
+    private static VaadinSession session() {
+        WrappedSession httpSession = new WrappedHttpSession(new MockHttpSession());
+        return new VaadinSession(null) {
+            @Override
+            public WrappedSession getSession() {
+                return httpSession;
+            }
+        };
+    }
+}
@@ -0,0 +1,154 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the packaged application a few times and reports, per start, the time from launching the
+ * JVM to the first answered HTTP request and the resident memory right after it. Run it once per
+ * configuration to compare them, e.g. the plain jar against the production build in target/cds:
+ * {@code --jar=target/cds/campusmanager-0.0.1-SNAPSHOT.jar
+ * --jvm-args="-XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true" --spring.profiles.active=prod}.
+ *
+ * <p>Options: {@code --jar=target/campusmanager-0.0.1-SNAPSHOT.jar --jvm-args= --url=http://localhost:8080/login
+ * --runs=5 --timeout=300 --dir=}. Any other argument is passed to the application. The JVM runs in
+ * {@code --dir}, the jar's directory by default, so relative paths in {@code --jvm-args} resolve
+ * there. A development build only starts in dev mode from the project directory, so pass
+ * {@code --dir=.} for it. Memory is read from {@code /proc}, so it is only reported on Linux.
+ */
+public final class StartupProbe {
+
+    private final Path jar;
+    private final Path directory;
+    private final List<String> jvmArgs;
+    private final URI url;
+    private final int runs;
+    private final int timeoutSeconds;
+    private final List<String> applicationArgs;
+    private final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(Duration.ofSeconds(1))
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+
+    private StartupProbe(Map<String, String> options, List<String> applicationArgs) {
+        this.jar = Path.of(options.getOrDefault("jar", "target/campusmanager-0.0.1-SNAPSHOT.jar")).toAbsolutePath();
+        this.directory = options.containsKey("dir") ? Path.of(options.get("dir")).toAbsolutePath() : jar.getParent();
+        String jvmArgs = options.getOrDefault("jvm-args", "").trim();
+        this.jvmArgs = jvmArgs.isEmpty() ? List.of() : Arrays.asList(jvmArgs.split("\\s+"));
+        this.url = URI.create(options.getOrDefault("url", "http://localhost:8080/login"));
+        this.runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        this.timeoutSeconds = Integer.parseInt(options.getOrDefault("timeout", "300"));
+        this.applicationArgs = applicationArgs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new TreeMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String name = arg.startsWith("--") && arg.contains("=") ? arg.substring(2, arg.indexOf('=')) : null;
+            if (name != null && !name.contains(".")) {
+                options.put(name, arg.substring(arg.indexOf('=') + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        new StartupProbe(options, applicationArgs).run();
+    }
+
+    private void run() throws Exception {
+        if (!Files.isRegularFile(jar)) {
+            throw new RuntimeException(jar + " not found; run mvn package first");
+        }
+        System.out.printf("Starting %s %d times, jvm args %s, app args %s%n", jar, runs, jvmArgs, applicationArgs);
+        System.out.printf("%n%-6s %22s %14s%n", "run", "first request ms", "rss MB");
+        long[] millis = new long[runs];
+        long[] rssKb = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            Start start = startOnce();
+            millis[i] = start.millis();
+            rssKb[i] = start.rssKb();
+            System.out.printf("%-6d %22d %14s%n", i + 1, start.millis(), megabytes(start.rssKb()));
+        }
+        Arrays.sort(millis);
+        Arrays.sort(rssKb);
+        System.out.printf("%-6s %22d %14s%n", "median", millis[runs / 2], megabytes(rssKb[runs / 2]));
+    }
+
+    private record Start(long millis, long rssKb) {
+    }
+
+    private Start startOnce() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toString());
+        command.addAll(applicationArgs);
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+            .directory(directory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            long deadline = started + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (!answered()) {
+                if (!process.isAlive()) {
+                    throw new RuntimeException("The application exited with status " + process.exitValue()
+                        + " before answering " + url);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new RuntimeException("No answer from " + url + " within " + timeoutSeconds + " s");
+                }
+                Thread.sleep(20);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new Start(millis, residentKb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    // Any answer below 500 counts: the login page, or a redirect to it
+    private boolean answered() throws InterruptedException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(5)).GET().build();
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 500;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long residentKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return -1;
+    }
+
+    private static String megabytes(long kb) {
+        return kb < 0 ? "n/a" : String.format("%.1f", kb / 1024.0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.smartcampusmng.campusmanager.perf;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the queries a piece of code runs, with their bound parameters, so they can be run
+ * again under EXPLAIN. Only prepared SELECT statements on the calling thread are recorded, and only
+ * inside {@link #capture(Runnable)}.
+ */
+final class StatementCapture {
+    private static final ThreadLocal<List<CapturedQuery>> CAPTURED = new ThreadLocal<>();
+
+    private StatementCapture() {
+    }
+
+    record CapturedQuery(String sql, List<Object> parameters) {
+    }
+
+    static List<CapturedQuery> capture(Runnable work) {
+        List<CapturedQuery> captured = new ArrayList<>();
+        CAPTURED.set(captured);
+        try {
+            work.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return captured;
+    }
+
+    static DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, (method, args) -> {
+            Object result = invoke(dataSource, method, args);
+            return result instanceof Connection connection ? wrap(connection) : result;
+        });
+    }
+
+    private static Connection wrap(Connection connection) {
+        return proxy(Connection.class, (method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+                return wrap(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        Map<Integer, Object> parameters = new TreeMap<>();
+        return proxy(PreparedStatement.class, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute") && CAPTURED.get() != null
+                && sql.stripLeading().toLowerCase().startsWith("select")) {
+                CAPTURED.get().add(new CapturedQuery(sql, new ArrayList<>(parameters.values())));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(method, args);
+        return type.cast(Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+            new Class<?>[] {type}, invocationHandler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeAlert;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import com.smartcampusmng.campusmanager.perf.PerfDataset;
+import com.smartcampusmng.campusmanager.repository.FeeAlertRepository;
+import com.smartcampusmng.campusmanager.repository.StudentFeeRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code saveAll()} of {@code rows} new {@link StudentFee} or {@link FeeAlert} entities in one
+ * transaction, with JDBC batching off ({@code jdbcBatchSize} 1) and on. Running the same
+ * benchmark on a tree whose entities still use IDENTITY ids gives the numbers from before pooled
+ * ids, where Hibernate sends one INSERT per row whatever the batch size. In-memory H2 has no
+ * network round trips to save, so compare against MySQL. Rows inserted by the benchmark are
+ * wiped before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+    @Param("200")
+    public int students;
+
+    @Param("500")
+    public int rows;
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    private PerfDataset dataset;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private StudentFeeRepository studentFeeRepository;
+    private FeeAlertRepository feeAlertRepository;
+    private User staff;
+    private List<StudentFee> templates;
+    private long lastProvisionedId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        dataset.createStudents(students);
+        staff = dataset.createStaff(1).get(0);
+        dataset.provisionTerm();
+        templates = dataset.loadFees();
+        lastProvisionedId = templates.get(templates.size() - 1).getStudentFeeId();
+        entityManager = PerfContext.bean(EntityManager.class);
+        transactionTemplate = PerfContext.bean(TransactionTemplate.class);
+        studentFeeRepository = PerfContext.bean(StudentFeeRepository.class);
+        feeAlertRepository = PerfContext.bean(FeeAlertRepository.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void deleteInsertedRows() {
+        dataset.jdbc().update("DELETE FROM fee_alerts");
+        dataset.jdbc().update("DELETE FROM student_fees WHERE student_fee_id > ?", lastProvisionedId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PerfContext.stop();
+    }
+
+    @Benchmark
+    public List<StudentFee> insertStudentFees() {
+        List<StudentFee> fees = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            StudentFee template = templates.get(i % templates.size());
+            StudentFee fee = new StudentFee();
+            fee.setStudent(template.getStudent());
+            fee.setFeeType(template.getFeeType());
+            fee.setSemester(template.getSemester());
+            fee.setAcademicYear(template.getAcademicYear());
+            fee.setAmount(template.getAmount());
+            fee.setDueDate(template.getDueDate());
+            fee.setStatus(StudentFee.PaymentStatus.PENDING);
+            fee.setCreatedAt(LocalDateTime.now());
+            fees.add(fee);
+        }
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            return studentFeeRepository.saveAllAndFlush(fees);
+        });
+    }
+
+    @Benchmark
+    public List<FeeAlert> insertFeeAlerts() {
+        List<FeeAlert> alerts = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            StudentFee fee = templates.get(i % templates.size());
+            FeeAlert alert = new FeeAlert();
+            alert.setStudent(fee.getStudent());
+            alert.setStudentFee(fee);
+            alert.setSentBy(staff);
+            alert.setAlertDate(LocalDateTime.now());
+            alert.setMessage("Your fee payment is overdue. Please pay as soon as possible.");
+            alerts.add(alert);
+        }
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            return feeAlertRepository.saveAllAndFlush(alerts);
+        });
+    }
+}
@@ -0,0 +1,82 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeAlert;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import com.smartcampusmng.campusmanager.perf.PerfDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FeeAlertService#createAlert} for one fee at a time. Fees are cycled through per sender, so
+ * no alert is ever a duplicate within an iteration; alerts are wiped before every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeeAlertBenchmark {
+    private static final String MESSAGE = "Your fee payment is overdue. Please pay as soon as possible.";
+
+    @Param("1000")
+    public int students;
+
+    @Param("20")
+    public int senders;
+
+    private PerfDataset dataset;
+    private FeeAlertService feeAlertService;
+    private List<User> staff;
+    private List<StudentFee> fees;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        dataset.createStudents(students);
+        staff = dataset.createStaff(senders);
+        dataset.provisionTerm();
+        feeAlertService = PerfContext.bean(FeeAlertService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetAlerts() {
+        dataset.jdbc().update("DELETE FROM notification_outbox");
+        dataset.jdbc().update("DELETE FROM fee_alerts");
+        dataset.jdbc().update("UPDATE student_fees SET alerted = FALSE");
+        fees = dataset.loadFees();
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PerfContext.stop();
+    }
+
+    @Benchmark
+    public FeeAlert createAlert() {
+        int index = next++;
+        StudentFee fee = fees.get(index % fees.size());
+        User sentBy = staff.get((index / fees.size()) % staff.size());
+        return feeAlertService.createAlert(fee.getStudent(), fee, sentBy, MESSAGE);
+    }
+}
@@ -0,0 +1,94 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
+import com.smartcampusmng.campusmanager.dto.PendingFeeRow;
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import com.smartcampusmng.campusmanager.perf.PerfDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One page of grid rows as the receipt and overdue fee views fetch them, walking through all pages.
+ * Half of the fees are paid so both grids have rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridRowBenchmark {
+    @Param("1000")
+    public int students;
+
+    @Param("50")
+    public int pageSize;
+
+    private PaymentService paymentService;
+    private StudentFeeService studentFeeService;
+    private String semester;
+    private String academicYear;
+    private int paymentPages;
+    private int pendingPages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PerfDataset dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        dataset.createStudents(students);
+        dataset.provisionTerm();
+        dataset.seedPayments(2, dataset.createStaff(1).get(0));
+
+        paymentService = PerfContext.bean(PaymentService.class);
+        studentFeeService = PerfContext.bean(StudentFeeService.class);
+        semester = PerfContext.semester();
+        academicYear = PerfContext.academicYear();
+        paymentPages = pages(paymentService.countPaymentsBySemesterAndYear(semester, academicYear));
+        pendingPages = pages(studentFeeService.countUnalertedPendingFees(semester, academicYear));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PerfContext.stop();
+    }
+
+    @Benchmark
+    public List<PaymentRow> paymentGridPage() {
+        return paymentService.getPaymentsBySemesterAndYear(semester, academicYear,
+            PageRequest.of(next++ % paymentPages, pageSize));
+    }
+
+    @Benchmark
+    public List<PaymentRow> paymentGridPageSortedByStudent() {
+        return paymentService.getPaymentsBySemesterAndYear(semester, academicYear,
+            PageRequest.of(next++ % paymentPages, pageSize, Sort.by("student.firstName", "student.lastName")));
+    }
+
+    @Benchmark
+    public List<PendingFeeRow> pendingFeeGridPage() {
+        return studentFeeService.getUnalertedPendingFees(semester, academicYear,
+            PageRequest.of(next++ % pendingPages, pageSize, Sort.by("dueDate")));
+    }
+
+    private int pages(long rows) {
+        return (int) Math.max(1, (rows + pageSize - 1) / pageSize);
+    }
+}
@@ -0,0 +1,76 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import com.smartcampusmng.campusmanager.perf.PerfDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PaymentService#processPayment} for one fee at a time, as recorded from the payment page.
+ * Payments are wiped before every iteration so each one starts from the same set of pending fees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentBenchmark {
+    @Param("1000")
+    public int students;
+
+    private PerfDataset dataset;
+    private PaymentService paymentService;
+    private User staff;
+    private List<StudentFee> fees;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = PerfContext.dataset();
+        dataset.clear();
+        dataset.seedFeeTypes();
+        dataset.createStudents(students);
+        staff = dataset.createStaff(1).get(0);
+        dataset.provisionTerm();
+        paymentService = PerfContext.bean(PaymentService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPayments() {
+        dataset.jdbc().update("DELETE FROM payments");
+        dataset.jdbc().update("UPDATE student_fees SET status = 'PENDING'");
+        fees = dataset.loadFees();
+        next = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PerfContext.stop();
+    }
+
+    @Benchmark
+    public Payment processPayment() {
+        StudentFee fee = fees.get(next++ % fees.size());
+        return paymentService.processPayment(fee, fee.getStudent(), staff, Payment.PaymentMethod.CASH,
+            "TXN-" + next, UUID.randomUUID().toString());
+    }
+}
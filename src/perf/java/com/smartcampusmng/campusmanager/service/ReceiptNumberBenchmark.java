@@ -0,0 +1,61 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ReceiptNumberAllocator#next()} single threaded and under contention, by block size. A
+ * block size of 1 goes to the database for every number, as a table-backed counter would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiptNumberBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int blockSize;
+
+    private ReceiptNumberAllocator allocator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        allocator = new ReceiptNumberAllocator(PerfContext.bean(JdbcTemplate.class),
+            PerfContext.bean(PlatformTransactionManager.class), blockSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        PerfContext.stop();
+    }
+
+    @Benchmark
+    public String next() {
+        return allocator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextContended() {
+        return allocator.next();
+    }
+}
@@ -0,0 +1,110 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.perf.PerfContext;
+import com.smartcampusmng.campusmanager.perf.PerfDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StudentFeeService#ensureStudentFeesExist} for a student whose term is already provisioned
+ * (the common case on every page view) and for one whose fees still have to be created.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentFeeBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Provisioned {
+        @Param("1000")
+        public int students;
+
+        StudentFeeService studentFeeService;
+        List<User> studentList;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PerfDataset dataset = PerfContext.dataset();
+            dataset.clear();
+            dataset.seedFeeTypes();
+            studentList = dataset.createStudents(students);
+            dataset.provisionTerm();
+            studentFeeService = PerfContext.bean(StudentFeeService.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            PerfContext.stop();
+        }
+
+        User nextStudent() {
+            return studentList.get(next++ % studentList.size());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Unprovisioned {
+        @Param("1000")
+        public int students;
+
+        StudentFeeService studentFeeService;
+        JdbcTemplate jdbcTemplate;
+        List<User> studentList;
+        User student;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            PerfDataset dataset = PerfContext.dataset();
+            dataset.clear();
+            dataset.seedFeeTypes();
+            studentList = dataset.createStudents(students);
+            studentFeeService = PerfContext.bean(StudentFeeService.class);
+            jdbcTemplate = dataset.jdbc();
+        }
+
+        // Drops the next student's fees so every invocation provisions a whole term
+        @Setup(Level.Invocation)
+        public void nextStudent() {
+            student = studentList.get(next++ % studentList.size());
+            jdbcTemplate.update("DELETE FROM student_fees WHERE student_id = ?", student.getUserId());
+            jdbcTemplate.update("DELETE FROM fee_provisioning WHERE student_id = ?", student.getUserId());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            PerfContext.stop();
+        }
+    }
+
+    @Benchmark
+    public void ensureFeesAlreadyProvisioned(Provisioned state) {
+        state.studentFeeService.ensureStudentFeesExist(
+            state.nextStudent(), PerfContext.semester(), PerfContext.academicYear());
+    }
+
+    @Benchmark
+    public void ensureFeesFirstVisit(Unprovisioned state) {
+        state.studentFeeService.ensureStudentFeesExist(
+            state.student, PerfContext.semester(), PerfContext.academicYear());
+    }
+}
@@ -0,0 +1,194 @@
+package com.smartcampusmng.campusmanager.repository;
+
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
+import com.smartcampusmng.campusmanager.dto.PendingFeeRow;
+import com.smartcampusmng.campusmanager.dto.SentAlertRow;
+import com.smartcampusmng.campusmanager.dto.StudentAlertRow;
+import com.smartcampusmng.campusmanager.entity.FeeAlert;
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.service.StudentFeeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each grid must load with one statement however many rows it shows, so a projection that
+ * starts fetching entities (and their students, fees and fee types row by row) fails here.
+ */
+@DataJpaTest(showSql = false, properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class GridQueryCountTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+    private static final int STUDENTS = 6;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private StudentFeeRepository studentFeeRepository;
+
+    @Autowired
+    private FeeAlertRepository feeAlertRepository;
+
+    private final List<User> students = new ArrayList<>();
+    private User staff;
+
+    @BeforeEach
+    void seed() {
+        staff = user("staff", User.UserRole.ACCOUNTS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < STUDENTS; i++) {
+            User student = user("student" + i, User.UserRole.STUDENT);
+            students.add(student);
+            // A fee type per student, so nothing a row refers to is shared with another row
+            for (int j = 0; j < 2; j++) {
+                // The second fee has passed its due date; the pending grid lists it all the same
+                StudentFee fee = fee(student, feeType("Fee " + i + "-" + j),
+                    j == 0 ? StudentFee.PaymentStatus.PENDING : StudentFee.PaymentStatus.OVERDUE);
+                if (j == 0) {
+                    payment(fee, now.minusMinutes(i));
+                }
+                alert(fee, now.minusMinutes(i * 2L + j));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void paymentHistoryLoadsInOneStatement() {
+        List<PaymentRow> rows = assertOneStatement(() ->
+            paymentRepository.findRowsByTerm(SEMESTER, ACADEMIC_YEAR, PageRequest.of(0, 50)));
+        assertThat(rows).hasSize(STUDENTS);
+
+        List<PaymentRow> studentRows = assertOneStatement(() ->
+            paymentRepository.findRowsByStudentAndTerm(students.get(0), SEMESTER, ACADEMIC_YEAR));
+        assertThat(studentRows).hasSize(1);
+
+        List<PaymentRow> nextPage = assertOneStatement(() ->
+            paymentRepository.findRowsByTermAfter(SEMESTER, ACADEMIC_YEAR, 0L, PageRequest.of(0, 50)));
+        assertThat(nextPage).hasSize(STUDENTS);
+    }
+
+    @Test
+    void pendingFeesLoadInOneStatement() {
+        List<PendingFeeRow> rows = assertOneStatement(() -> studentFeeRepository.findUnalertedRows(
+            SEMESTER, ACADEMIC_YEAR, StudentFeeService.UNPAID, PageRequest.of(0, 50)));
+        assertThat(rows).hasSize(STUDENTS * 2);
+    }
+
+    @Test
+    void sentAlertsLoadInOneStatement() {
+        List<SentAlertRow> rows = assertOneStatement(() ->
+            feeAlertRepository.findSentAlertRows(staff, PageRequest.of(0, 50)));
+        assertThat(rows).hasSize(STUDENTS * 2);
+
+        SentAlertRow last = rows.get(STUDENTS - 1);
+        List<SentAlertRow> older = assertOneStatement(() -> feeAlertRepository.findSentAlertRowsBefore(
+            staff, last.alertDate(), last.alertId(), PageRequest.of(0, 50)));
+        assertThat(older).hasSize(STUDENTS);
+    }
+
+    @Test
+    void studentAlertsLoadInOneStatement() {
+        List<StudentAlertRow> rows = assertOneStatement(() ->
+            feeAlertRepository.findStudentAlertRows(students.get(0), PageRequest.of(0, 50)));
+        assertThat(rows).hasSize(2);
+
+        StudentAlertRow first = rows.get(0);
+        List<StudentAlertRow> older = assertOneStatement(() -> feeAlertRepository.findStudentAlertRowsBefore(
+            students.get(0), first.alertDate(), first.alertId(), PageRequest.of(0, 50)));
+        assertThat(older).hasSize(1);
+    }
+
+    private <T> T assertOneStatement(Supplier<T> load) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = load.get();
+        assertThat(statistics.getPrepareStatementCount()).as("statements").isEqualTo(1);
+        return result;
+    }
+
+    private User user(String username, User.UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        return entityManager.persist(user);
+    }
+
+    private FeeType feeType(String name) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName(name);
+        feeType.setAmount(100.0);
+        feeType.setFrequency(FeeType.Frequency.SEMESTER);
+        return entityManager.persist(feeType);
+    }
+
+    private StudentFee fee(User student, FeeType feeType, StudentFee.PaymentStatus status) {
+        StudentFee fee = new StudentFee();
+        fee.setStudent(student);
+        fee.setFeeType(feeType);
+        fee.setSemester(SEMESTER);
+        fee.setAcademicYear(ACADEMIC_YEAR);
+        fee.setAmount(feeType.getAmount());
+        fee.setDueDate(LocalDate.now().plusDays(30));
+        fee.setStatus(status);
+        fee.setCreatedAt(LocalDateTime.now());
+        return entityManager.persist(fee);
+    }
+
+    private void payment(StudentFee fee, LocalDateTime paymentDate) {
+        Payment payment = new Payment();
+        payment.setStudent(fee.getStudent());
+        payment.setStudentFee(fee);
+        payment.setPaymentDate(paymentDate);
+        payment.setAmount(fee.getAmount());
+        payment.setPaymentMethod(Payment.PaymentMethod.CASH);
+        payment.setReceiptNumber("RCP-" + fee.getStudentFeeId());
+        payment.setRecordedBy(staff);
+        entityManager.persist(payment);
+    }
+
+    private void alert(StudentFee fee, LocalDateTime alertDate) {
+        FeeAlert alert = new FeeAlert();
+        alert.setStudent(fee.getStudent());
+        alert.setStudentFee(fee);
+        alert.setSentBy(staff);
+        alert.setAlertDate(alertDate);
+        alert.setMessage("Please pay " + fee.getFeeType().getFeeName());
+        entityManager.persist(alert);
+    }
+}
@@ -0,0 +1,120 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.StudentFeeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Payments whose pooled ids come from an older block than the watermark, committed after a
+ * rollup run, must still be aggregated. Runs without a test transaction, as the service commits a
+ * chunk per transaction, and without the application class, whose scheduling would start a
+ * rollup of its own.
+ */
+@H2ServiceTest
+@TestPropertySource(properties = {"analytics.rollup.chunk-size=2", "analytics.rollup.settle-seconds=60"})
+@Import(CollectionAnalyticsService.class)
+class CollectionAnalyticsServiceTest {
+    private static final String INSERT_PAYMENT =
+        "INSERT INTO payments (payment_id, student_id, student_fee_id, payment_date, amount, payment_method, " +
+        "receipt_number, recorded_by) VALUES (?, ?, ?, ?, ?, 'CASH', ?, ?)";
+
+    @Autowired
+    private CollectionAnalyticsService analyticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeTypeRepository feeTypeRepository;
+
+    @Autowired
+    private StudentFeeRepository studentFeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void paymentsWithLowerIdsCommittedLaterAreNotLost() {
+        User student = user("student", User.UserRole.STUDENT);
+        User staff = user("staff", User.UserRole.ACCOUNTS);
+        StudentFee fee = fee(student);
+        LocalDateTime now = LocalDateTime.now();
+
+        // One app server works through the id block from 51, with two payments in the same instant
+        insertPayment(51, now.minusMinutes(10), 100.0, student, fee, staff);
+        insertPayment(52, now.minusMinutes(9), 200.0, student, fee, staff);
+        insertPayment(53, now.minusMinutes(9), 300.0, student, fee, staff);
+        assertThat(analyticsService.rollUp()).isEqualTo(3);
+        assertTotals(3, 600.0);
+
+        // Another still hands out ids from 1 and commits after the rollup; a payment inside the
+        // settle delay waits for the next run
+        insertPayment(2, now.minusMinutes(5), 400.0, student, fee, staff);
+        insertPayment(60, now.minusSeconds(5), 500.0, student, fee, staff);
+        assertThat(analyticsService.rollUp()).isEqualTo(1);
+        assertTotals(4, 1000.0);
+        assertThat(analyticsService.rollUp()).isZero();
+
+        assertThat(analyticsService.rebuild()).isEqualTo(4);
+        assertTotals(4, 1000.0);
+    }
+
+    private void assertTotals(long payments, double amount) {
+        Map<String, Object> totals = jdbcTemplate.queryForMap(
+            "SELECT SUM(payment_count) AS payments, SUM(total_amount) AS amount FROM payment_daily_rollups");
+        assertThat(((Number) totals.get("payments")).longValue()).as("payments").isEqualTo(payments);
+        assertThat(((Number) totals.get("amount")).doubleValue()).as("amount").isEqualTo(amount);
+    }
+
+    private void insertPayment(long id, LocalDateTime paymentDate, double amount, User student, StudentFee fee,
+                               User staff) {
+        jdbcTemplate.update(INSERT_PAYMENT, id, student.getUserId(), fee.getStudentFeeId(),
+            Timestamp.valueOf(paymentDate), amount, "RCP-" + id, staff.getUserId());
+    }
+
+    private User user(String username, User.UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private StudentFee fee(User student) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName("Tuition");
+        feeType.setAmount(1500.0);
+        feeType.setFrequency(FeeType.Frequency.SEMESTER);
+        feeType = feeTypeRepository.save(feeType);
+
+        StudentFee fee = new StudentFee();
+        fee.setStudent(student);
+        fee.setFeeType(feeType);
+        fee.setSemester("First Semester (Aug-Dec)");
+        fee.setAcademicYear("2026-2027");
+        fee.setAmount(feeType.getAmount());
+        fee.setDueDate(LocalDate.now().plusDays(30));
+        fee.setStatus(StudentFee.PaymentStatus.PENDING);
+        fee.setCreatedAt(LocalDateTime.now());
+        return studentFeeRepository.save(fee);
+    }
+}
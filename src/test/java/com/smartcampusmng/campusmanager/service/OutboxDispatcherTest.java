@@ -0,0 +1,182 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.notification.NotificationConfig;
+import com.smartcampusmng.campusmanager.notification.Notifier;
+import com.smartcampusmng.campusmanager.notification.OutboundMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A notification that can't be delivered is retried with a growing delay and left as FAILED at
+ * the attempt limit. A claim that expires while its delivery is still running is taken over by
+ * the next run, and the outcome of the first run is then dropped rather than recorded again.
+ */
+@H2ServiceTest
+@TestPropertySource(properties = {
+    "notifications.outbox.max-attempts=3",
+    "notifications.outbox.base-backoff-seconds=30",
+    "notifications.outbox.max-backoff-seconds=45",
+    "notifications.outbox.claim-timeout-seconds=60"
+})
+@Import({OutboxDispatcher.class, NotificationConfig.class, OutboxDispatcherTest.ScriptedNotifier.class})
+class OutboxDispatcherTest {
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    @Autowired
+    private ScriptedNotifier notifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void failedDeliveriesBackOffUntilTheAttemptLimit() {
+        long id = enqueue("failing@smartcampus.local");
+        notifier.failure = new IllegalStateException("mailbox unavailable");
+        try {
+            assertRetriedAfter(id, 1, Duration.ofSeconds(30));
+            makeDue(id);
+            // 60s, capped at the maximum
+            assertRetriedAfter(id, 2, Duration.ofSeconds(45));
+            makeDue(id);
+            dispatcher.drain();
+        } finally {
+            notifier.failure = null;
+        }
+
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("FAILED");
+        assertThat(row.get("attempts")).isEqualTo(3);
+        assertThat(row.get("last_error")).isEqualTo("mailbox unavailable");
+        assertThat(row.get("claim_token")).isNull();
+
+        makeDue(id);
+        assertThat(dispatcher.drain()).as("claimed after the last attempt").isZero();
+        assertThat(row(id).get("attempts")).isEqualTo(3);
+    }
+
+    @Test
+    void expiredClaimTakenOverIsRecordedOnce() throws Exception {
+        long id = enqueue("slow@smartcampus.local");
+        double lostBefore = meterRegistry.counter("notifications.outbox.claims.lost").count();
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        notifier.entered = entered;
+        notifier.release = release;
+
+        // The first run hangs in the notifier until its claim has expired and the row is taken over
+        CompletableFuture<Integer> firstRun = CompletableFuture.supplyAsync(dispatcher::drain);
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(row(id).get("claim_token")).as("claim of the first run").isNotNull();
+        jdbcTemplate.update("UPDATE notification_outbox SET claimed_at = ? WHERE outbox_id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusMinutes(2)), id);
+
+        assertThat(dispatcher.drain()).isEqualTo(1);
+        Map<String, Object> taken = row(id);
+        assertThat(taken.get("status")).isEqualTo("SENT");
+        assertThat(taken.get("attempts")).isEqualTo(1);
+
+        release.countDown();
+        assertThat(firstRun.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("SENT");
+        assertThat(row.get("attempts")).as("attempts after both runs").isEqualTo(1);
+        assertThat(row.get("sent_at")).isEqualTo(taken.get("sent_at"));
+        assertThat(meterRegistry.counter("notifications.outbox.claims.lost").count() - lostBefore).isEqualTo(1);
+        assertThat(notifier.sent.stream().filter(outboxId -> outboxId == id)).hasSize(2);
+    }
+
+    private void assertRetriedAfter(long id, int attempts, Duration backoff) {
+        LocalDateTime before = LocalDateTime.now();
+        assertThat(dispatcher.drain()).isEqualTo(1);
+        LocalDateTime after = LocalDateTime.now();
+
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("PENDING");
+        assertThat(row.get("attempts")).isEqualTo(attempts);
+        assertThat(row.get("claim_token")).isNull();
+        LocalDateTime nextAttempt = ((Timestamp) row.get("next_attempt_at")).toLocalDateTime();
+        assertThat(nextAttempt).as("next attempt after attempt " + attempts)
+            .isBetween(before.plus(backoff), after.plus(backoff));
+    }
+
+    private long enqueue(String recipient) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO notification_outbox (recipient, subject, body, status, attempts, next_attempt_at, " +
+                "created_at) VALUES (?, 'Fee reminder', 'Please pay', 'PENDING', 0, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, recipient);
+            statement.setTimestamp(2, now);
+            statement.setTimestamp(3, now);
+            return statement;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    private void makeDue(long id) {
+        jdbcTemplate.update("UPDATE notification_outbox SET next_attempt_at = ? WHERE outbox_id = ?",
+            Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), id);
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT status, attempts, next_attempt_at, claim_token, last_error, " +
+            "sent_at FROM notification_outbox WHERE outbox_id = ?", id);
+    }
+
+    /**
+     * Records what it was asked to deliver, and fails or holds deliveries when told to.
+     */
+    static class ScriptedNotifier implements Notifier {
+        private final List<Long> sent = new CopyOnWriteArrayList<>();
+        private volatile RuntimeException failure;
+        private volatile CountDownLatch entered;
+        private volatile CountDownLatch release;
+
+        @Override
+        public void send(OutboundMessage message) {
+            sent.add(message.outboxId());
+            RuntimeException error = failure;
+            if (error != null) {
+                throw error;
+            }
+            CountDownLatch hold = release;
+            if (hold != null) {
+                release = null;
+                entered.countDown();
+                try {
+                    hold.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The sweep walks the ids of the due fees in ranges of three, so the fees below span four ranges
+ * with the first and last due fee at either end. Only PENDING fees due before the grace period
+ * move to OVERDUE, with their version bumped and their amounts moved in the ledger.
+ */
+@H2ServiceTest
+@TestPropertySource(properties = {"fees.overdue.chunk-size=3", "fees.overdue.grace-days=2"})
+@Import({OverdueFeeSweeper.class, StudentBalanceService.class})
+class OverdueFeeSweeperTest {
+    private static final String INSERT_FEE =
+        "INSERT INTO student_fees (student_fee_id, student_id, fee_type_id, semester, academic_year, amount, " +
+        "due_date, status, alerted, version, created_at, updated_at) " +
+        "VALUES (?, ?, ?, 'First Semester (Aug-Dec)', '2026-2027', ?, ?, ?, false, 0, ?, ?)";
+
+    @Autowired
+    private OverdueFeeSweeper sweeper;
+
+    @Autowired
+    private StudentBalanceService studentBalanceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeTypeRepository feeTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void onlyPendingFeesPastTheGracePeriodBecomeOverdue() {
+        User first = student("first");
+        User second = student("second");
+        FeeType feeType = feeType();
+        fee(101, first, feeType, 100.0, -10, "PENDING");
+        fee(102, first, feeType, 200.0, 5, "PENDING");
+        fee(103, second, feeType, 300.0, -2, "PENDING");
+        fee(105, first, feeType, 400.0, -10, "PAID");
+        fee(107, second, feeType, 500.0, -3, "PENDING");
+        fee(108, second, feeType, 600.0, -20, "OVERDUE");
+        fee(112, second, feeType, 700.0, -30, "PENDING");
+        studentBalanceService.rebuild();
+
+        assertThat(sweeper.sweep()).isEqualTo(3);
+
+        assertFee(101, "OVERDUE", 1);
+        assertFee(102, "PENDING", 0);
+        // Due two days ago, so still inside the grace period
+        assertFee(103, "PENDING", 0);
+        assertFee(105, "PAID", 0);
+        assertFee(107, "OVERDUE", 1);
+        assertFee(108, "OVERDUE", 0);
+        assertFee(112, "OVERDUE", 1);
+
+        assertBalance(first, 200.0, 1, 100.0, 1, 400.0, 1);
+        assertBalance(second, 300.0, 1, 1800.0, 3, 0.0, 0);
+        assertThat(sweeper.sweep()).as("fees changed by a second sweep").isZero();
+    }
+
+    private void assertFee(long id, String status, long version) {
+        Map<String, Object> fee = jdbcTemplate.queryForMap(
+            "SELECT status, version FROM student_fees WHERE student_fee_id = ?", id);
+        assertThat(fee.get("status")).as("status of fee " + id).isEqualTo(status);
+        assertThat(((Number) fee.get("version")).longValue()).as("version of fee " + id).isEqualTo(version);
+    }
+
+    private void assertBalance(User student, double pendingAmount, int pendingCount, double overdueAmount,
+                               int overdueCount, double paidAmount, int paidCount) {
+        Map<String, Object> balance = jdbcTemplate.queryForMap(
+            "SELECT pending_amount, pending_count, overdue_amount, overdue_count, paid_amount, paid_count " +
+            "FROM student_balances WHERE student_id = ?", student.getUserId());
+        assertThat(balance).as("balance of " + student.getUsername()).containsExactlyInAnyOrderEntriesOf(Map.of(
+            "pending_amount", pendingAmount, "pending_count", pendingCount,
+            "overdue_amount", overdueAmount, "overdue_count", overdueCount,
+            "paid_amount", paidAmount, "paid_count", paidCount));
+    }
+
+    private void fee(long id, User student, FeeType feeType, double amount, int dueInDays, String status) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(INSERT_FEE, id, student.getUserId(), feeType.getFeeTypeId(), amount,
+            Date.valueOf(LocalDate.now().plusDays(dueInDays)), status, now, now);
+    }
+
+    private User student(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(User.UserRole.STUDENT);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private FeeType feeType() {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName("Tuition");
+        feeType.setAmount(100.0);
+        feeType.setFrequency(FeeType.Frequency.SEMESTER);
+        return feeTypeRepository.save(feeType);
+    }
+}
@@ -0,0 +1,76 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.dto.PaymentRow;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.repository.PaymentRepository;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentExportServiceTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+
+    private final PaymentRepository paymentRepository = mock(PaymentRepository.class);
+    private final PaymentExportService exportService = new PaymentExportService(paymentRepository);
+
+    @Test
+    void csvFieldsThatStartLikeAFormulaAreNeutralized() throws Exception {
+        when(paymentRepository.streamRowsByTerm(SEMESTER, ACADEMIC_YEAR)).thenReturn(Stream.of(row()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.writeCsv(SEMESTER, ACADEMIC_YEAR, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[1])
+            .contains("'@student")
+            .contains("'+1 Mallory")
+            .contains("\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"x\"\")\"")
+            .contains(",1500.00,")
+            .contains("'-Desk Clerk");
+    }
+
+    @Test
+    void onlyValuesStartingLikeAFormulaArePrefixed() {
+        assertThat(PaymentExportService.neutralizeFormula("TXN-42")).isEqualTo("TXN-42");
+        assertThat(PaymentExportService.neutralizeFormula("")).isEmpty();
+        assertThat(PaymentExportService.neutralizeFormula(null)).isNull();
+        assertThat(PaymentExportService.neutralizeFormula("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(PaymentExportService.neutralizeFormula("\rcmd")).isEqualTo("'\rcmd");
+    }
+
+    @Test
+    void xlsxWritesUserTextAsStringCells() throws Exception {
+        when(paymentRepository.streamRowsByTerm(SEMESTER, ACADEMIC_YEAR)).thenReturn(Stream.of(row()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.writeXlsx(SEMESTER, ACADEMIC_YEAR, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Row row = workbook.getSheet("Payments").getRow(1);
+            Cell reference = row.getCell(10);
+            assertThat(reference.getCellType()).isEqualTo(CellType.STRING);
+            assertThat(reference.getStringCellValue()).isEqualTo("=HYPERLINK(\"http://evil.example\",\"x\")");
+            assertThat(row.getCell(8).getCellType()).isEqualTo(CellType.NUMERIC);
+        }
+    }
+
+    private static PaymentRow row() {
+        return new PaymentRow(7L, "@student", "+1", "Mallory", "Tuition", SEMESTER, ACADEMIC_YEAR, 1500.0,
+            Payment.PaymentMethod.CASH, LocalDateTime.of(2026, 9, 1, 10, 30), "RCP-7",
+            "=HYPERLINK(\"http://evil.example\",\"x\")", "-Desk", "Clerk");
+    }
+}
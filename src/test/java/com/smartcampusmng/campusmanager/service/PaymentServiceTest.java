@@ -0,0 +1,182 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.datasource.ReadYourWrites;
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Paying a fee again, from a repeated submit or from a second tab, records no second payment and
+ * hands back the first one. A fee that changed in some other way since it was loaded is reloaded
+ * and paid, and a checkout is paid in full or not at all.
+ */
+@H2ServiceTest
+@Import({PaymentService.class, StudentFeeService.class, StudentBalanceService.class, FeeAlertService.class,
+    NotificationOutboxService.class, ReceiptNumberAllocator.class, EntityIdAllocator.class, ReadYourWrites.class})
+class PaymentServiceTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private StudentFeeService studentFeeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeTypeRepository feeTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Every test has students and fee types of its own, as the database outlives the test
+    private String suffix;
+    private User student;
+    private User staff;
+
+    @BeforeEach
+    void seed() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        student = user("student-" + suffix, User.UserRole.STUDENT);
+        staff = user("staff-" + suffix, User.UserRole.ACCOUNTS);
+    }
+
+    @Test
+    void repeatedKeyReturnsTheFirstPayment() {
+        StudentFee fee = fees("Library").get(0);
+
+        Payment first = pay(fee, "checkout");
+        // The fee still carries the version it was loaded with, as after a double click
+        Payment again = pay(fee, "checkout");
+
+        assertThat(again.getPaymentId()).isEqualTo(first.getPaymentId());
+        assertThat(paymentCount(fee)).isEqualTo(1);
+    }
+
+    @Test
+    void feeChangedSinceItWasLoadedIsReloadedAndPaid() {
+        StudentFee fee = fees("Lab").get(0);
+        long loadedVersion = fee.getVersion();
+        studentFeeService.markFeesAlerted(List.of(fee.getStudentFeeId()));
+
+        Payment payment = pay(fee, "checkout");
+
+        assertThat(payment.getStudentFee().getVersion()).as("version paid").isEqualTo(loadedVersion + 1);
+        assertThat(status(fee)).isEqualTo("PAID");
+        assertThat(version(fee)).isEqualTo(loadedVersion + 2);
+        assertThat(paymentCount(fee)).isEqualTo(1);
+    }
+
+    @Test
+    void secondTabPayingUnderAnotherKeyGetsTheFirstPayment() {
+        StudentFee fee = fees("Sports").get(0);
+        StudentFee otherTab = reload(fee);
+
+        Payment first = pay(fee, "first-tab");
+        Payment second = pay(otherTab, "second-tab");
+
+        assertThat(second.getPaymentId()).isEqualTo(first.getPaymentId());
+        assertThat(second.getIdempotencyKey()).startsWith("first-tab:");
+        assertThat(paymentCount(fee)).isEqualTo(1);
+    }
+
+    @Test
+    void checkoutWithAFeePaidMeanwhileRollsBackEntirely() {
+        List<StudentFee> fees = fees("Tuition", "Hostel");
+        StudentFee tuition = fees.get(0);
+        StudentFee hostel = fees.get(1);
+        pay(reload(hostel), "other-tab");
+        Map<String, Object> ledger = ledger();
+
+        assertThatThrownBy(() -> paymentService.processPayments(List.of(tuition, hostel), student, staff,
+                Payment.PaymentMethod.CASH, null, "checkout"))
+            .hasMessageContaining("paid already");
+
+        assertThat(status(tuition)).isEqualTo("PENDING");
+        assertThat(version(tuition)).isEqualTo(tuition.getVersion());
+        assertThat(paymentCount(tuition)).isZero();
+        assertThat(paymentCount(hostel)).isEqualTo(1);
+        assertThat(ledger()).isEqualTo(ledger);
+    }
+
+    private Payment pay(StudentFee fee, String idempotencyKey) {
+        return paymentService.processPayment(fee, student, staff, Payment.PaymentMethod.CASH, null, idempotencyKey);
+    }
+
+    private StudentFee reload(StudentFee fee) {
+        return studentFeeService.getFeesByIds(List.of(fee.getStudentFeeId())).get(0);
+    }
+
+    private String status(StudentFee fee) {
+        return jdbcTemplate.queryForObject("SELECT status FROM student_fees WHERE student_fee_id = ?",
+            String.class, fee.getStudentFeeId());
+    }
+
+    private Long version(StudentFee fee) {
+        return jdbcTemplate.queryForObject("SELECT version FROM student_fees WHERE student_fee_id = ?",
+            Long.class, fee.getStudentFeeId());
+    }
+
+    private Long paymentCount(StudentFee fee) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE student_fee_id = ?",
+            Long.class, fee.getStudentFeeId());
+    }
+
+    private Map<String, Object> ledger() {
+        return jdbcTemplate.queryForMap("SELECT * FROM student_balances WHERE student_id = ?", student.getUserId());
+    }
+
+    /**
+     * Fee types with the given names and the student's fees of them, provisioned as the payment
+     * page does. Monthly fee types are due whatever the date.
+     */
+    private List<StudentFee> fees(String... names) {
+        List<String> feeNames = Arrays.stream(names).map(name -> name + " " + suffix).toList();
+        for (String feeName : feeNames) {
+            FeeType feeType = new FeeType();
+            feeType.setFeeName(feeName);
+            feeType.setAmount(50.0);
+            feeType.setFrequency(FeeType.Frequency.MONTHLY);
+            feeTypeRepository.save(feeType);
+        }
+        List<StudentFee> provisioned =
+            studentFeeService.getFeesForStudentAndSemester(student, SEMESTER, ACADEMIC_YEAR);
+        return feeNames.stream()
+            .map(feeName -> provisioned.stream()
+                .filter(fee -> fee.getFeeType().getFeeName().equals(feeName))
+                .findFirst().orElseThrow())
+            .toList();
+    }
+
+    private User user(String username, User.UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,142 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.datasource.ReadYourWrites;
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.Payment;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The ledger must equal a direct aggregate of {@code student_fees} after every flow that changes
+ * fees: provisioning, a single payment, a checkout, the overdue sweep, and a rebuild after the
+ * ledger has drifted.
+ */
+@H2ServiceTest
+@Import({StudentBalanceService.class, StudentFeeService.class, PaymentService.class, FeeAlertService.class,
+    NotificationOutboxService.class, ReceiptNumberAllocator.class, EntityIdAllocator.class, ReadYourWrites.class,
+    OverdueFeeSweeper.class})
+class StudentBalanceServiceTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+
+    private static final String LEDGER =
+        "SELECT student_id, pending_amount, pending_count, overdue_amount, overdue_count, paid_amount, paid_count " +
+        "FROM student_balances ORDER BY student_id";
+
+    private static final String FEE_TOTALS =
+        "SELECT student_id, " +
+        "SUM(CASE WHEN status = 'PENDING' THEN amount ELSE 0 END) AS pending_amount, " +
+        "SUM(CASE WHEN status = 'PENDING' THEN 1 ELSE 0 END) AS pending_count, " +
+        "SUM(CASE WHEN status = 'OVERDUE' THEN amount ELSE 0 END) AS overdue_amount, " +
+        "SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END) AS overdue_count, " +
+        "SUM(CASE WHEN status = 'PAID' THEN amount ELSE 0 END) AS paid_amount, " +
+        "SUM(CASE WHEN status = 'PAID' THEN 1 ELSE 0 END) AS paid_count " +
+        "FROM student_fees GROUP BY student_id ORDER BY student_id";
+
+    @Autowired
+    private StudentBalanceService studentBalanceService;
+
+    @Autowired
+    private StudentFeeService studentFeeService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private OverdueFeeSweeper overdueFeeSweeper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeTypeRepository feeTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void ledgerMatchesTheFeesAfterEveryFlow() {
+        feeType("Library", 50.0);
+        feeType("Lab", 70.0);
+        feeType("Sports", 120.0);
+        User first = user("first", User.UserRole.STUDENT);
+        User second = user("second", User.UserRole.STUDENT);
+        User staff = user("staff", User.UserRole.ACCOUNTS);
+
+        List<StudentFee> firstFees = studentFeeService.getFeesForStudentAndSemester(first, SEMESTER, ACADEMIC_YEAR);
+        List<StudentFee> secondFees = studentFeeService.getFeesForStudentAndSemester(second, SEMESTER, ACADEMIC_YEAR);
+        assertThat(firstFees).hasSize(3);
+        assertLedgerMatchesFees("provisioning");
+
+        paymentService.processPayment(firstFees.get(0), first, staff, Payment.PaymentMethod.CASH, null, "single");
+        assertLedgerMatchesFees("payment");
+
+        paymentService.processPayments(secondFees.subList(0, 2), second, staff, Payment.PaymentMethod.CASH, null,
+            "checkout");
+        assertLedgerMatchesFees("checkout");
+
+        // The sweep leaves paid fees alone, whatever their due date
+        jdbcTemplate.update("UPDATE student_fees SET due_date = ?", Date.valueOf(LocalDate.now().minusDays(3)));
+        assertThat(overdueFeeSweeper.sweep()).isEqualTo(3);
+        assertLedgerMatchesFees("overdue sweep");
+
+        assertThat(studentBalanceService.rebuild()).as("rows corrected when consistent").isZero();
+        jdbcTemplate.update("UPDATE student_balances SET pending_amount = 0, overdue_count = 7 WHERE student_id = ?",
+            second.getUserId());
+        jdbcTemplate.update("DELETE FROM student_balances WHERE student_id = ?", first.getUserId());
+        assertThat(studentBalanceService.rebuild()).as("rows corrected after drift").isEqualTo(2);
+        assertLedgerMatchesFees("rebuild");
+    }
+
+    private void assertLedgerMatchesFees(String flow) {
+        List<Totals> ledger = jdbcTemplate.query(LEDGER, (rs, rowNum) -> Totals.of(rs));
+        List<Totals> fees = jdbcTemplate.query(FEE_TOTALS, (rs, rowNum) -> Totals.of(rs));
+        assertThat(ledger).as("ledger after " + flow).isEqualTo(fees);
+    }
+
+    private void feeType(String name, double amount) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName(name);
+        feeType.setAmount(amount);
+        feeType.setFrequency(FeeType.Frequency.MONTHLY);
+        feeTypeRepository.save(feeType);
+    }
+
+    private User user(String username, User.UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(role);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    // Amounts are whole currency units here, so they compare exactly
+    private record Totals(long studentId, double pendingAmount, long pendingCount, double overdueAmount,
+                          long overdueCount, double paidAmount, long paidCount) {
+
+        static Totals of(ResultSet rs) throws SQLException {
+            return new Totals(rs.getLong("student_id"), rs.getDouble("pending_amount"), rs.getLong("pending_count"),
+                rs.getDouble("overdue_amount"), rs.getLong("overdue_count"), rs.getDouble("paid_amount"),
+                rs.getLong("paid_count"));
+        }
+    }
+}
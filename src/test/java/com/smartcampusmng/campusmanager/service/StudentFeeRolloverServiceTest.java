@@ -0,0 +1,131 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeTypeRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * A fee the payment page provisions while the rollover is between its existence check and its
+ * insert must neither fail the chunk nor be counted twice in the balance, and every student the
+ * rollover has walked is left with a provisioning watermark. Runs without a test transaction, as
+ * the rollover commits a chunk per transaction on its own thread.
+ */
+@H2ServiceTest
+@TestPropertySource(properties = "fees.rollover.chunk-size=2")
+@Import({StudentFeeRolloverService.class, StudentFeeService.class, StudentBalanceService.class,
+    EntityIdAllocator.class, RolloverConfig.class})
+class StudentFeeRolloverServiceTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+
+    @Autowired
+    private StudentFeeRolloverService rolloverService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeTypeRepository feeTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private EntityIdAllocator entityIdAllocator;
+
+    @Test
+    void feeProvisionedDuringTheChunkIsSkipped() throws Exception {
+        // V3 adds the unique key with expressions H2 can't index; fees here always have a semester
+        jdbcTemplate.execute("CREATE UNIQUE INDEX uk_student_fees_term " +
+            "ON student_fees (student_id, fee_type_id, semester, academic_year)");
+        feeType("Library", 50.0);
+        FeeType lab = feeType("Lab", 70.0);
+        List<User> students = List.of(student("first"), student("second"), student("third"));
+        User raced = students.get(1);
+
+        // The payment page creates the lab fee of the second student once the chunk has checked.
+        // The allocator is stubbed behind its transactional proxy, which requires a transaction.
+        AtomicBoolean raceDone = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (raceDone.compareAndSet(false, true)) {
+                insertFee(9001, raced, lab);
+            }
+            return invocation.callRealMethod();
+        }).when(AopTestUtils.<EntityIdAllocator>getUltimateTargetObject(entityIdAllocator)).nextId(any());
+
+        List<StudentFeeRolloverService.Progress> progress = new CopyOnWriteArrayList<>();
+        StudentFeeRolloverService.RolloverResult result = rolloverService
+            .startRolloverTerm(SEMESTER, ACADEMIC_YEAR, progress::add)
+            .get(30, TimeUnit.SECONDS);
+
+        assertThat(result.studentsProcessed()).isEqualTo(3);
+        assertThat(result.rowsCreated()).isEqualTo(5);
+        assertThat(progress).hasSize(2);
+        for (User student : students) {
+            assertThat(count("SELECT COUNT(*) FROM student_fees WHERE student_id = ?", student))
+                .as("fees of " + student.getUsername()).isEqualTo(2);
+            assertThat(count("SELECT COUNT(*) FROM fee_provisioning WHERE student_id = ? " +
+                "AND semester = '" + SEMESTER + "' AND academic_year = '" + ACADEMIC_YEAR + "'", student))
+                .as("watermark of " + student.getUsername()).isEqualTo(1);
+        }
+        // The raced fee was inserted without its ledger change, so only the rollover's own fee shows
+        assertThat(count("SELECT pending_count FROM student_balances WHERE student_id = ?", raced)).isEqualTo(1);
+        assertThat(count("SELECT pending_count FROM student_balances WHERE student_id = ?", students.get(0)))
+            .isEqualTo(2);
+    }
+
+    private long count(String sql, User student) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, student.getUserId());
+        return count == null ? 0 : count;
+    }
+
+    private void insertFee(long id, User student, FeeType feeType) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO student_fees (student_fee_id, student_id, fee_type_id, semester, " +
+                "academic_year, amount, due_date, status, alerted, version, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, 'PENDING', false, 0, ?, ?)",
+            id, student.getUserId(), feeType.getFeeTypeId(), SEMESTER, ACADEMIC_YEAR, feeType.getAmount(),
+            Date.valueOf(LocalDate.now().plusDays(15)), now, now);
+    }
+
+    private User student(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setEmail(username + "@smartcampus.local");
+        user.setFirstName(username);
+        user.setLastName("Test");
+        user.setRole(User.UserRole.STUDENT);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private FeeType feeType(String name, double amount) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName(name);
+        feeType.setAmount(amount);
+        feeType.setFrequency(FeeType.Frequency.MONTHLY);
+        return feeTypeRepository.save(feeType);
+    }
+}
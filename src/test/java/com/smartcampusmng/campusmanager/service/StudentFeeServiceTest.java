@@ -0,0 +1,106 @@
+package com.smartcampusmng.campusmanager.service;
+
+import com.smartcampusmng.campusmanager.entity.FeeType;
+import com.smartcampusmng.campusmanager.entity.StudentFee;
+import com.smartcampusmng.campusmanager.entity.User;
+import com.smartcampusmng.campusmanager.repository.FeeProvisioningRepository;
+import com.smartcampusmng.campusmanager.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A provisioned term is read with the fee select alone, and stays provisioned until a fee type is
+ * added or changes frequency. Uses monthly fee types, which are due whatever the date, and runs without a test
+ * transaction, as provisioning commits on its own.
+ */
+@H2ServiceTest
+@Import({StudentFeeService.class, StudentBalanceService.class, FeeTypeService.class})
+class StudentFeeServiceTest {
+    private static final String SEMESTER = "First Semester (Aug-Dec)";
+    private static final String ACADEMIC_YEAR = "2026-2027";
+
+    @Autowired
+    private StudentFeeService studentFeeService;
+
+    @Autowired
+    private FeeTypeService feeTypeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FeeProvisioningRepository feeProvisioningRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void provisionedTermIsReadWithOneStatementUntilFeeTypesChange() {
+        FeeType library = feeTypeService.saveFeeType(feeType("Library"));
+        User student = student();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        assertThat(fees(student)).containsExactly("Library");
+        assertThat(feeProvisioningRepository.existsByStudentIdAndSemesterAndAcademicYear(
+            student.getUserId(), SEMESTER, ACADEMIC_YEAR)).isTrue();
+
+        statistics.clear();
+        assertThat(fees(student)).containsExactly("Library");
+        assertThat(statistics.getPrepareStatementCount()).as("statements").isEqualTo(1);
+
+        // What a fee type is called or costs doesn't change which fees a term gets
+        library.setDescription("Reading room access");
+        library.setAmount(60.0);
+        feeTypeService.saveFeeType(library);
+        assertThat(feeProvisioningRepository.count()).isOne();
+
+        // A new fee type drops the watermark, so the next read provisions the term again
+        feeTypeService.saveFeeType(feeType("Lab"));
+        assertThat(feeProvisioningRepository.count()).isZero();
+        assertThat(fees(student)).containsExactlyInAnyOrder("Library", "Lab");
+
+        statistics.clear();
+        assertThat(fees(student)).containsExactlyInAnyOrder("Library", "Lab");
+        assertThat(statistics.getPrepareStatementCount()).as("statements").isEqualTo(1);
+
+        // So does a new frequency
+        library.setFrequency(FeeType.Frequency.ONE_TIME);
+        feeTypeService.saveFeeType(library);
+        assertThat(feeProvisioningRepository.count()).isZero();
+    }
+
+    private List<String> fees(User student) {
+        return studentFeeService.getFeesForStudentAndSemester(student, SEMESTER, ACADEMIC_YEAR).stream()
+            .map(fee -> fee.getFeeType().getFeeName())
+            .toList();
+    }
+
+    private User student() {
+        User user = new User();
+        user.setUsername("student");
+        user.setPassword("secret");
+        user.setEmail("student@smartcampus.local");
+        user.setFirstName("student");
+        user.setLastName("Test");
+        user.setRole(User.UserRole.STUDENT);
+        user.setCreatedAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+
+    private static FeeType feeType(String name) {
+        FeeType feeType = new FeeType();
+        feeType.setFeeName(name);
+        feeType.setAmount(50.0);
+        feeType.setFrequency(FeeType.Frequency.MONTHLY);
+        return feeType;
+    }
+}